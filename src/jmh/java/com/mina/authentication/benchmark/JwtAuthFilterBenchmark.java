@@ -0,0 +1,120 @@
+package com.mina.authentication.benchmark;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mina.authentication.config.AuthMetrics;
+import com.mina.authentication.config.DatabaseBulkheads;
+import com.mina.authentication.config.JwtAuthFilter;
+import com.mina.authentication.config.JwtProperties;
+import com.mina.authentication.config.ReplicaRouter;
+import com.mina.authentication.domain.User;
+import com.mina.authentication.helper.ErrorBodies;
+import com.mina.authentication.helper.JwtHelper;
+import com.mina.authentication.helper.JwtKeys;
+import com.mina.authentication.repository.RevokedTokenRepository;
+import com.mina.authentication.repository.UserRepository;
+import com.mina.authentication.service.TokenRevocationService;
+import com.mina.authentication.service.UserCache;
+import com.mina.authentication.service.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * The whole filter for an authenticated request, with the user served from the user cache and a chain that does nothing, and
+ * for the rejections of a forged and of a malformed token.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JwtAuthFilterBenchmark {
+
+  private static final String EMAIL = "mina@gmail.com";
+  private static final FilterChain NOOP_CHAIN = (request, response) -> {
+  };
+
+  private JwtAuthFilter filter;
+  private String authorization;
+  private String forgedAuthorization;
+
+  @Setup
+  public void setup() {
+    UserRepository repository = mock(UserRepository.class);
+    when(repository.findByEmail(EMAIL)).thenReturn(Optional.of(new User("Mina", EMAIL, "hash")));
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    AuthMetrics metrics = new AuthMetrics(meterRegistry);
+    ReplicaRouter noReplicas = new ReplicaRouter(List.of(), Duration.ofSeconds(1), meterRegistry);
+    DatabaseBulkheads bulkheads = new DatabaseBulkheads(meterRegistry, 6, Duration.ofMillis(500), 2, Duration.ofMillis(500),
+        Duration.ofSeconds(1));
+    UserCache userCache = new UserCache(repository, noReplicas, bulkheads, mock(PlatformTransactionManager.class), meterRegistry,
+        10_000, Duration.ofMinutes(5));
+
+    JwtProperties properties = new JwtProperties(Duration.ofMinutes(60), 10_000, null, List.of());
+    JwtKeys keys = JwtKeys.ephemeral();
+    JwtHelper jwtHelper = new JwtHelper(keys, properties);
+
+    // Nothing is revoked, every check is answered by the Bloom filter
+    TokenRevocationService tokenRevocationService = new TokenRevocationService(mock(RevokedTokenRepository.class), metrics, 100_000, 0.01);
+
+    filter = new JwtAuthFilter(jwtHelper, new UserDetailsServiceImpl(userCache, repository, metrics, Set.of()),
+        tokenRevocationService, new ErrorBodies(new ObjectMapper()), metrics);
+    authorization = "Bearer " + jwtHelper.generateToken(EMAIL);
+    // Signed by another key under the same kid
+    JwtKeys other = JwtKeys.ephemeral();
+    JwtKeys forgedKeys = new JwtKeys(keys.activeKeyId(), other.signingKey(),
+        Map.of(keys.activeKeyId(), other.verificationKey(other.activeKeyId())));
+    JwtHelper forger = new JwtHelper(forgedKeys, properties);
+    forgedAuthorization = "Bearer " + forger.generateToken(EMAIL);
+  }
+
+  @Benchmark
+  public MockHttpServletResponse doFilterInternal() throws Exception {
+    return filter(authorization);
+  }
+
+  @Benchmark
+  public MockHttpServletResponse rejectForgedToken() throws Exception {
+    return filter(forgedAuthorization);
+  }
+
+  @Benchmark
+  public MockHttpServletResponse rejectMalformedToken() throws Exception {
+    return filter("Bearer not-a-jwt");
+  }
+
+  private MockHttpServletResponse filter(String authorization) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/auth/loginAttempts");
+    request.addHeader("Authorization", authorization);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    try {
+      filter.doFilter(request, response, NOOP_CHAIN);
+    } finally {
+      SecurityContextHolder.clearContext();
+    }
+    return response;
+  }
+}
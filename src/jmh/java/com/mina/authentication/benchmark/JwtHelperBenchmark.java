@@ -0,0 +1,57 @@
+package com.mina.authentication.benchmark;
+
+import com.mina.authentication.config.JwtProperties;
+import com.mina.authentication.helper.JwtHelper;
+import com.mina.authentication.helper.JwtKeys;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JwtHelperBenchmark {
+
+  private static final String EMAIL = "mina@gmail.com";
+
+  private JwtHelper jwtHelper;
+  private String token;
+  private UserDetails userDetails;
+
+  @Setup
+  public void setup() {
+    jwtHelper = new JwtHelper(JwtKeys.ephemeral(), new JwtProperties(Duration.ofMinutes(60), 10_000, null, List.of()));
+    token = jwtHelper.generateToken(EMAIL);
+    userDetails = User.builder().username(EMAIL).password("hash").build();
+  }
+
+  @Benchmark
+  public String generateToken() {
+    return jwtHelper.generateToken(EMAIL);
+  }
+
+  @Benchmark
+  public String extractUsername() {
+    return jwtHelper.extractUsername(token);
+  }
+
+  @Benchmark
+  public Boolean validateToken() {
+    return jwtHelper.validateToken(token, userDetails);
+  }
+}
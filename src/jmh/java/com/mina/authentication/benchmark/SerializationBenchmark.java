@@ -0,0 +1,67 @@
+package com.mina.authentication.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mina.authentication.config.JwtProperties;
+import com.mina.authentication.controller.dto.LoginAttemptResponse;
+import com.mina.authentication.controller.dto.LoginResponse;
+import com.mina.authentication.domain.LoginAttempt;
+import com.mina.authentication.helper.JwtHelper;
+import com.mina.authentication.helper.JwtKeys;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SerializationBenchmark {
+
+  private ObjectMapper objectMapper;
+  private List<LoginAttempt> loginAttempts;
+  private LoginResponse loginResponse;
+
+  @Setup
+  public void setup() {
+    // configured like the ObjectMapper Spring Boot creates
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    LocalDateTime now = LocalDateTime.now();
+    loginAttempts = IntStream.range(0, 10)
+        .mapToObj(i -> new LoginAttempt(null, "mina@gmail.com", i % 3 != 0, now.minusMinutes(i)))
+        .toList();
+    loginResponse = new LoginResponse("mina@gmail.com", new JwtHelper(JwtKeys.ephemeral(), new JwtProperties(Duration.ofMinutes(60), 10_000, null, List.of()))
+        .generateToken("mina@gmail.com"), "q3Vh1nJ8Xo2pZ0Wk7sYb5RtLm9CdEf4GhIjK6uAyNwM"); // refresh tokens are 32 random bytes
+  }
+
+  @Benchmark
+  public List<LoginAttemptResponse> convertToDTO() {
+    return loginAttempts.stream()
+        .map(LoginAttemptResponse::convertToDTO)
+        .toList();
+  }
+
+  @Benchmark
+  public byte[] serializeLoginAttempts() throws Exception {
+    return objectMapper.writeValueAsBytes(convertToDTO());
+  }
+
+  @Benchmark
+  public byte[] serializeLoginResponse() throws Exception {
+    return objectMapper.writeValueAsBytes(loginResponse);
+  }
+}
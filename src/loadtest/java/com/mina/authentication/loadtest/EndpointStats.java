@@ -0,0 +1,75 @@
+package com.mina.authentication.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency histogram (in microseconds) and response status counts of one endpoint in one scenario.
+ */
+final class EndpointStats {
+
+  static final int IO_ERROR = -1;
+
+  private final String name;
+  private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+  private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+  private long startedAt;
+  private long finishedAt;
+
+  EndpointStats(String name) {
+    this.name = name;
+  }
+
+  String name() {
+    return name;
+  }
+
+  void started() {
+    startedAt = System.nanoTime();
+  }
+
+  void finished() {
+    finishedAt = System.nanoTime();
+  }
+
+  void record(long requestStartedAt, int status) {
+    latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - requestStartedAt), latencies.getHighestTrackableValue()));
+    statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+  }
+
+  double throughput() {
+    return latencies.getTotalCount() / ((finishedAt - startedAt) / 1e9);
+  }
+
+  String summaryLine() {
+    return "%-14s %10d %12.1f %10.2f %10.2f %10.2f %10.2f  %s".formatted(name, latencies.getTotalCount(), throughput(),
+        millis(50), millis(99), millis(99.9), latencies.getMaxValue() / 1000.0, new TreeMap<>(statuses));
+  }
+
+  String csvLine() {
+    return "%s,%d,%.1f,%.3f,%.3f,%.3f,%.3f".formatted(name, latencies.getTotalCount(), throughput(), millis(50), millis(99), millis(99.9),
+        latencies.getMaxValue() / 1000.0);
+  }
+
+  /**
+   * Writes the percentile distribution in milliseconds, the .hgrm format can be plotted with the HdrHistogram plotter.
+   */
+  void writeHistogram(Path directory) throws IOException {
+    try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(name + ".hgrm")))) {
+      latencies.outputPercentileDistribution(out, 1000.0);
+    }
+  }
+
+  private double millis(double percentile) {
+    return latencies.getValueAtPercentile(percentile) / 1000.0;
+  }
+}
@@ -0,0 +1,204 @@
+package com.mina.authentication.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mina.authentication.Main;
+import com.mina.authentication.controller.dto.LoginResponse;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the service against an embedded Postgres and runs three scripted scenarios against it:
+ * <ol>
+ *   <li>a signup storm creating {@code loadtest.users} users,</li>
+ *   <li>a login burst with {@code loadtest.failure-ratio} of the logins using a wrong password,</li>
+ *   <li>steady /loginAttempts reads with valid tokens.</li>
+ * </ol>
+ * Latency percentiles and throughput per endpoint are printed and written as HDR histograms to {@code loadtest.output}.
+ */
+public class LoadTest {
+
+  private static final String PASSWORD = "123456";
+
+  private final LoadTestSettings settings;
+  private final String baseUrl;
+  private final HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  LoadTest(LoadTestSettings settings, String baseUrl) {
+    this.settings = settings;
+    this.baseUrl = baseUrl;
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+    try (EmbeddedPostgres postgres = settings.jdbcUrl() == null ? EmbeddedPostgres.start() : null) {
+      String jdbcUrl = postgres != null ? postgres.getJdbcUrl("postgres", "postgres") : settings.jdbcUrl();
+      try (ConfigurableApplicationContext context = startApplication(jdbcUrl, settings)) {
+        String port = context.getEnvironment().getProperty("local.server.port");
+        new LoadTest(settings, "http://localhost:" + port + "/api/auth").run();
+      }
+    }
+  }
+
+  private static ConfigurableApplicationContext startApplication(String jdbcUrl, LoadTestSettings settings) {
+    // passed as command line arguments, they have to override application.yml
+    return new SpringApplicationBuilder(Main.class)
+        .run(
+            "--server.port=0",
+            "--management.server.port=0",
+            "--server.shutdown=immediate",
+            "--spring.datasource.url=" + jdbcUrl,
+            "--spring.datasource.username=" + settings.username(),
+            "--spring.datasource.password=" + settings.password(),
+            "--logging.level.root=WARN");
+  }
+
+  void run() throws Exception {
+    String runId = Long.toString(Instant.now().toEpochMilli(), 36);
+    List<String> emails = IntStream.range(0, settings.users())
+        .mapToObj(i -> "loadtest-%s-%d@example.com".formatted(runId, i))
+        .toList();
+    List<EndpointStats> results = new ArrayList<>();
+
+    EndpointStats signup = new EndpointStats("signup");
+    runTimes(signup, emails.size(), i -> signup(signup, emails.get(i)));
+    results.add(signup);
+
+    EndpointStats login = new EndpointStats("login");
+    Map<String, String> tokens = new ConcurrentHashMap<>();
+    runFor(login, () -> {
+      String email = emails.get(ThreadLocalRandom.current().nextInt(emails.size()));
+      boolean fail = ThreadLocalRandom.current().nextDouble() < settings.failureRatio();
+      String token = login(login, email, fail ? "wrong-" + PASSWORD : PASSWORD);
+      if (token != null) {
+        tokens.put(email, token);
+      }
+    });
+    results.add(login);
+
+    List<String> validTokens = List.copyOf(tokens.values());
+    if (!validTokens.isEmpty()) {
+      EndpointStats loginAttempts = new EndpointStats("loginAttempts");
+      runFor(loginAttempts, () -> loginAttempts(loginAttempts, validTokens.get(ThreadLocalRandom.current().nextInt(validTokens.size()))));
+      results.add(loginAttempts);
+    }
+
+    report(results);
+  }
+
+  private void signup(EndpointStats stats, String email) {
+    String body = """
+        {"name": "load test", "email": "%s", "password": "%s"}""".formatted(email, PASSWORD);
+    send(stats, HttpRequest.newBuilder(URI.create(baseUrl + "/signup"))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build());
+  }
+
+  private String login(EndpointStats stats, String email, String password) {
+    String body = """
+        {"email": "%s", "password": "%s"}""".formatted(email, password);
+    HttpResponse<String> response = send(stats, HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build());
+    if (response == null || response.statusCode() != 200) {
+      return null;
+    }
+    try {
+      return objectMapper.readValue(response.body(), LoginResponse.class).token();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private void loginAttempts(EndpointStats stats, String token) {
+    send(stats, HttpRequest.newBuilder(URI.create(baseUrl + "/loginAttempts"))
+        .header("Authorization", "Bearer " + token)
+        .GET()
+        .build());
+  }
+
+  private HttpResponse<String> send(EndpointStats stats, HttpRequest request) {
+    long startedAt = System.nanoTime();
+    try {
+      HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+      stats.record(startedAt, response.statusCode());
+      return response;
+    } catch (IOException e) {
+      stats.record(startedAt, EndpointStats.IO_ERROR);
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+
+  /**
+   * Runs the request from every client until the scenario duration is over.
+   */
+  private void runFor(EndpointStats stats, Runnable request) throws InterruptedException {
+    long deadline = System.nanoTime() + settings.duration().toNanos();
+    run(stats, () -> {
+      while (System.nanoTime() < deadline) {
+        request.run();
+      }
+    });
+  }
+
+  /**
+   * Runs the request the given number of times, spread over all clients.
+   */
+  private void runTimes(EndpointStats stats, int times, IntConsumer request) throws InterruptedException {
+    AtomicInteger next = new AtomicInteger();
+    run(stats, () -> {
+      for (int i = next.getAndIncrement(); i < times; i = next.getAndIncrement()) {
+        request.accept(i);
+      }
+    });
+  }
+
+  private void run(EndpointStats stats, Runnable client) throws InterruptedException {
+    System.out.printf("Running %s with %d clients%n", stats.name(), settings.concurrency());
+    stats.started();
+    try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < settings.concurrency(); i++) {
+        clients.submit(client);
+      }
+    }
+    stats.finished();
+  }
+
+  private void report(List<EndpointStats> results) throws IOException {
+    Files.createDirectories(settings.output());
+    List<String> csv = new ArrayList<>(List.of("endpoint,requests,throughput_per_s,p50_ms,p99_ms,p999_ms,max_ms"));
+
+    System.out.printf("%n%-14s %10s %12s %10s %10s %10s %10s  %s%n", "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p99.9 ms",
+        "max ms", "statuses");
+    for (EndpointStats stats : results) {
+      System.out.println(stats.summaryLine());
+      stats.writeHistogram(settings.output());
+      csv.add(stats.csvLine());
+    }
+    Files.write(settings.output().resolve("summary.csv"), csv);
+    System.out.printf("%nHistograms and summary.csv written to %s%n", settings.output().toAbsolutePath());
+  }
+}
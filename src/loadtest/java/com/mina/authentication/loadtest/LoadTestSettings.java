@@ -0,0 +1,30 @@
+package com.mina.authentication.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of a load test run, read from {@code loadtest.*} system properties.
+ *
+ * @param duration how long the login burst and the login attempts reads run
+ * @param concurrency number of concurrent clients per scenario
+ * @param users number of users created by the signup storm
+ * @param failureRatio share of logins sent with a wrong password
+ * @param jdbcUrl database to run against instead of the embedded Postgres, e.g. when running as root where Postgres refuses to start
+ * @param output directory the HDR histograms and the summary are written to
+ */
+record LoadTestSettings(Duration duration, int concurrency, int users, double failureRatio, String jdbcUrl, String username,
+                        String password, Path output) {
+
+  static LoadTestSettings fromSystemProperties() {
+    return new LoadTestSettings(
+        Duration.parse(System.getProperty("loadtest.duration", "PT30S")),
+        Integer.getInteger("loadtest.concurrency", 64),
+        Integer.getInteger("loadtest.users", 500),
+        Double.parseDouble(System.getProperty("loadtest.failure-ratio", "0.2")),
+        System.getProperty("loadtest.jdbc-url"),
+        System.getProperty("loadtest.username", "postgres"),
+        System.getProperty("loadtest.password", "postgres"),
+        Path.of(System.getProperty("loadtest.output", "target/load-test")));
+  }
+}
@@ -1,9 +1,26 @@
 package com.mina.authentication;
 
+import com.mina.authentication.config.NativeHints;
 import org.springframework.boot.SpringApplication;
-import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationExcludeFilter;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.ComponentScan.Filter;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// @SpringBootApplication with one more exclusion: the reactive variant (-Preactive) is an application of its own
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@ComponentScan(excludeFilters = {
+    @Filter(type = FilterType.CUSTOM, classes = TypeExcludeFilter.class),
+    @Filter(type = FilterType.CUSTOM, classes = AutoConfigurationExcludeFilter.class),
+    @Filter(type = FilterType.REGEX, pattern = "com\\.mina\\.authentication\\.reactive\\..*")})
+@EnableScheduling
+@ImportRuntimeHints(NativeHints.class)
 public class Main {
 
 	public static void main(String[] args) {
@@ -0,0 +1,114 @@
+package com.mina.authentication.config;
+
+import com.mina.authentication.exceptions.AccessDeniedException;
+import com.mina.authentication.exceptions.DuplicateException;
+import com.mina.authentication.exceptions.InvalidTokenException;
+import com.mina.authentication.exceptions.NotFoundException;
+import com.mina.authentication.exceptions.ServiceUnavailableException;
+import com.mina.authentication.exceptions.TokenExpiredException;
+import com.mina.authentication.exceptions.TooManyRequestsException;
+import com.mina.authentication.jfr.OperationEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Locale;
+import java.util.function.Supplier;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Latency histograms of the authentication requests ({@code auth.request}, tagged by operation) and of every stage they go
+ * through ({@code auth.stage}, tagged by stage), both tagged by outcome. Requests are also recorded as {@link OperationEvent}s
+ * when a flight recording is running.
+ */
+@Component
+public class AuthMetrics {
+
+  public enum Outcome {
+    SUCCESS, BAD_CREDENTIALS, NOT_FOUND, DUPLICATE, EXPIRED, BAD_SIGNATURE, REJECTED, LOCKED, ERROR;
+
+    private final String tag = name().toLowerCase(Locale.ROOT);
+
+    public String tag() {
+      return tag;
+    }
+
+    public static Outcome of(Throwable e) {
+      return switch (e) {
+        case TokenExpiredException ignored -> EXPIRED;
+        case AccessDeniedException ignored -> BAD_SIGNATURE;
+        case BadCredentialsException ignored -> BAD_CREDENTIALS;
+        case InvalidTokenException ignored -> BAD_CREDENTIALS;
+        case NotFoundException ignored -> NOT_FOUND;
+        case DuplicateException ignored -> DUPLICATE;
+        case ServiceUnavailableException ignored -> REJECTED;
+        case TooManyRequestsException ignored -> LOCKED;
+//        The AuthenticationManager wraps the exceptions of the UserDetailsService
+        case InternalAuthenticationServiceException wrapped when wrapped.getCause() != null -> of(wrapped.getCause());
+        default -> ERROR;
+      };
+    }
+  }
+
+  private static final String REQUEST = "auth.request";
+  private static final String STAGE = "auth.stage";
+
+  private final MeterRegistry registry;
+
+  public AuthMetrics(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  public MeterRegistry registry() {
+    return registry;
+  }
+
+  public <T> T operation(String operation, Supplier<T> work) {
+    OperationEvent event = new OperationEvent();
+    event.begin();
+    return time(REQUEST, "operation", operation, work, event);
+  }
+
+  public void operation(String operation, Runnable work) {
+    operation(operation, () -> {
+      work.run();
+      return null;
+    });
+  }
+
+  public <T> T stage(String stage, Supplier<T> work) {
+    return time(STAGE, "stage", stage, work, null);
+  }
+
+  public void stage(String stage, Runnable work) {
+    stage(stage, () -> {
+      work.run();
+      return null;
+    });
+  }
+
+  private <T> T time(String name, String key, String value, Supplier<T> work, OperationEvent event) {
+    Timer.Sample sample = Timer.start(registry);
+    Outcome outcome = Outcome.SUCCESS;
+    try {
+      return work.get();
+    } catch (RuntimeException e) {
+      outcome = Outcome.of(e);
+      throw e;
+    } finally {
+      sample.stop(Timer.builder(name)
+          .tag(key, value)
+          .tag("outcome", outcome.tag)
+          .publishPercentileHistogram()
+          .register(registry));
+      if (event != null) {
+        event.end();
+        if (event.shouldCommit()) {
+          event.operation = value;
+          event.outcome = outcome.tag;
+          event.commit();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package com.mina.authentication.config;
+
+import com.mina.authentication.exceptions.ServiceUnavailableException;
+import com.mina.authentication.jfr.PasswordHashEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Runs the CPU heavy hashing of the delegate on a dedicated, core sized pool instead of the request's virtual thread.
+ * <p>
+ * Work that does not fit into the bounded queue, or is still waiting in it after the queue timeout, is rejected with a
+ * {@link ServiceUnavailableException}, so an overload is answered fast with a 503 instead of slowing down every endpoint.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+  private final PasswordEncoder delegate;
+  private final ThreadPoolExecutor executor;
+  private final Duration queueTimeout;
+  private final Duration retryAfter;
+  private final AuthMetrics metrics;
+  private final Timer queueWait;
+  private final Counter rejected;
+
+  public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, Duration queueTimeout,
+      Duration retryAfter, AuthMetrics metrics) {
+    this.delegate = delegate;
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+        Thread.ofPlatform().name("password-hashing-", 0).daemon().factory());
+    this.queueTimeout = queueTimeout;
+    this.retryAfter = retryAfter;
+    this.metrics = metrics;
+
+    MeterRegistry meterRegistry = metrics.registry();
+    Gauge.builder("password.hashing.queue.depth", executor, e -> e.getQueue().size())
+        .description("Hashing requests waiting for a thread")
+        .register(meterRegistry);
+    Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+        .description("Hashing requests being computed")
+        .register(meterRegistry);
+    this.queueWait = Timer.builder("password.hashing.queue.wait")
+        .description("Time hashing requests waited for a thread")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.rejected = Counter.builder("password.hashing.rejected")
+        .description("Hashing requests rejected because the pool was saturated")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return submit("encode", () -> metrics.stage("password_encode", () -> delegate.encode(rawPassword)),
+        (event, encoded) -> event.cost = CalibratedPasswordEncoder.strength(encoded));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return submit("match", () -> metrics.stage("password_match", () -> delegate.matches(rawPassword, encodedPassword)),
+        (event, matched) -> {
+          event.cost = CalibratedPasswordEncoder.strength(encodedPassword);
+          event.matched = matched;
+        });
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+
+  /**
+   * @param describe sets the fields of the {@link PasswordHashEvent} from the result, only called when the event is recorded
+   */
+  private <T> T submit(String operation, Supplier<T> work, BiConsumer<PasswordHashEvent, T> describe) {
+    Thread requestThread = Thread.currentThread();
+    long enqueuedAt = System.nanoTime();
+    // Claimed either by the pool thread starting the work or by the caller giving up, whichever comes first
+    AtomicBoolean claimed = new AtomicBoolean();
+    CompletableFuture<T> result;
+    try {
+      result = CompletableFuture.supplyAsync(() -> {
+        if (!claimed.compareAndSet(false, true)) {
+          return null; // the caller has already been rejected
+        }
+        long waited = System.nanoTime() - enqueuedAt;
+        queueWait.record(waited, TimeUnit.NANOSECONDS);
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        T value = work.get();
+        event.end();
+        if (event.shouldCommit()) {
+          event.operation = operation;
+          event.queueWait = waited;
+          event.requestThread = requestThread;
+          describe.accept(event, value);
+          event.commit();
+        }
+        return value;
+      }, executor);
+    } catch (RejectedExecutionException e) {
+      throw rejected();
+    }
+
+    try {
+      return result.get(queueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      if (claimed.compareAndSet(false, true)) {
+        throw rejected();
+      }
+      return result.join(); // already hashing, the queue timeout does not apply anymore
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw rejected();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private ServiceUnavailableException rejected() {
+    rejected.increment();
+    return new ServiceUnavailableException("Too many concurrent authentication requests, please retry later", retryAfter);
+  }
+}
@@ -0,0 +1,84 @@
+package com.mina.authentication.config;
+
+import com.mina.authentication.exceptions.BulkheadFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Limits the concurrent executions of one kind of database work. Callers wait in arrival order for at most the maximum wait
+ * and are then rejected with a {@link BulkheadFullException}, instead of piling up in the connection pool where every waiting
+ * virtual thread would hold up all other kinds of work.
+ */
+public class Bulkhead {
+
+  private final String name;
+  private final Semaphore permits;
+  private final Duration maxWait;
+  private final Duration retryAfter;
+  private final Timer queueWait;
+  private final Counter rejected;
+
+  public Bulkhead(String name, int maxConcurrent, Duration maxWait, Duration retryAfter, MeterRegistry meterRegistry) {
+    this.name = name;
+    this.permits = new Semaphore(maxConcurrent, true);
+    this.maxWait = maxWait;
+    this.retryAfter = retryAfter;
+
+    Gauge.builder("db.bulkhead.active", permits, p -> maxConcurrent - p.availablePermits())
+        .description("Executions holding a permit")
+        .tag("bulkhead", name)
+        .register(meterRegistry);
+    Gauge.builder("db.bulkhead.queued", permits, Semaphore::getQueueLength)
+        .description("Executions waiting for a permit")
+        .tag("bulkhead", name)
+        .register(meterRegistry);
+    this.queueWait = Timer.builder("db.bulkhead.wait")
+        .description("Time executions waited for a permit")
+        .tag("bulkhead", name)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.rejected = Counter.builder("db.bulkhead.rejected")
+        .description("Executions rejected because no permit was free within the maximum wait")
+        .tag("bulkhead", name)
+        .register(meterRegistry);
+  }
+
+  public <T> T call(Supplier<T> work) {
+    acquire();
+    try {
+      return work.get();
+    } finally {
+      permits.release();
+    }
+  }
+
+  public void run(Runnable work) {
+    call(() -> {
+      work.run();
+      return null;
+    });
+  }
+
+  private void acquire() {
+    long waitingSince = System.nanoTime();
+    boolean acquired;
+    try {
+      // the timed tryAcquire respects the fairness, the untimed one would let this caller barge ahead of the waiting ones
+      acquired = permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      acquired = false;
+    }
+    queueWait.record(System.nanoTime() - waitingSince, TimeUnit.NANOSECONDS);
+    if (!acquired) {
+      rejected.increment();
+      throw new BulkheadFullException(name, retryAfter);
+    }
+  }
+}
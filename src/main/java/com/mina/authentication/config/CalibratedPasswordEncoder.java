@@ -0,0 +1,86 @@
+package com.mina.authentication.config;
+
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * {@link BCryptPasswordEncoder} with a strength that fits the hardware it runs on, see {@link #calibrate}. Hashes of a
+ * different strength, cheaper or more expensive, are upgraded: the next successful login hashes the password again with this
+ * one, so the CPU a login costs follows the fleet.
+ * <p>
+ * Nodes of different speed calibrate to different strengths, the tolerance keeps a user from being rehashed on every login
+ * when they log in on both.
+ */
+public class CalibratedPasswordEncoder extends BCryptPasswordEncoder {
+
+  private static final Logger log = LoggerFactory.getLogger(CalibratedPasswordEncoder.class);
+  private static final int PROBE_STRENGTH = 8;
+  private static final int PROBE_WARMUPS = 2;
+  private static final int PROBE_RUNS = 3;
+
+  private final int strength;
+  private final int tolerance;
+
+  /**
+   * @param tolerance how far the strength of a stored hash may be off before it is upgraded
+   */
+  public CalibratedPasswordEncoder(int strength, int tolerance) {
+    super(strength);
+    this.strength = strength;
+    this.tolerance = tolerance;
+  }
+
+  public int strength() {
+    return strength;
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    int current = strength(encodedPassword);
+    return current > 0 && Math.abs(current - strength) > tolerance;
+  }
+
+  /**
+   * The highest strength between the minimum and the maximum whose hash takes at most the target latency on this machine.
+   */
+  public static int calibrate(Duration targetLatency, int minStrength, int maxStrength) {
+    BCryptPasswordEncoder probe = new BCryptPasswordEncoder(PROBE_STRENGTH);
+    long fastest = Long.MAX_VALUE;
+//    The first hashes run before the JIT compiled BCrypt, and any noise only adds time
+    for (int i = 0; i < PROBE_WARMUPS + PROBE_RUNS; i++) {
+      long start = System.nanoTime();
+      probe.encode("calibration");
+      if (i >= PROBE_WARMUPS) {
+        fastest = Math.min(fastest, System.nanoTime() - start);
+      }
+    }
+
+//    Every step of the strength doubles the rounds, and the rounds are all of the time a hash takes
+    int strength = minStrength;
+    while (strength < maxStrength && latency(fastest, strength + 1) <= targetLatency.toNanos()) {
+      strength++;
+    }
+    log.info("Calibrated the BCrypt strength to {}, a hash takes about {} ms (target {} ms)", strength,
+        Math.round(latency(fastest, strength) / 1e6), targetLatency.toMillis());
+    return strength;
+  }
+
+  /**
+   * @return the strength of a BCrypt hash like {@code $2a$10$...}, 0 for anything else
+   */
+  public static int strength(String encodedPassword) {
+    if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$'
+        || encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$') {
+      return 0;
+    }
+    char tens = encodedPassword.charAt(4);
+    char ones = encodedPassword.charAt(5);
+    return Character.isDigit(tens) && Character.isDigit(ones) ? (tens - '0') * 10 + (ones - '0') : 0;
+  }
+
+  private static double latency(long probeNanos, int strength) {
+    return probeNanos * Math.pow(2, strength - PROBE_STRENGTH);
+  }
+}
@@ -0,0 +1,80 @@
+package com.mina.authentication.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseDataSource;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * The primary pool as configured in {@code spring.datasource}, behind a proxy that takes the connection at the first statement
+ * instead of at the start of the transaction. So a transaction waits for a connection only inside the bulkhead of its
+ * repository, and the replica routing knows whether the transaction is read-only.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class DataSourceConfig {
+
+  // Also the datasource of the migrations
+  @Bean
+  @LiquibaseDataSource
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties,
+      ObjectProvider<JdbcConnectionDetails> connectionDetails) {
+    HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    JdbcConnectionDetails details = connectionDetails.getIfAvailable();
+    if (details != null) { // a service connection, e.g. the Testcontainers database of the integration tests
+      dataSource.setJdbcUrl(details.getJdbcUrl());
+      dataSource.setUsername(details.getUsername());
+      dataSource.setPassword(details.getPassword());
+      dataSource.setDriverClassName(details.getDriverClassName());
+    }
+    return dataSource;
+  }
+
+  // Created without replicas too instead of being conditional, so an AOT processed build can still be given replicas at runtime
+  @Bean
+  public ReplicaRouter replicaRouter(HikariDataSource primaryDataSource, ReplicaProperties properties,
+      MeterRegistry meterRegistry) {
+    List<ReplicaRouter.Replica> replicas = new ArrayList<>();
+    for (int i = 0; i < properties.replicas().size(); i++) {
+      ReplicaProperties.Replica replica = properties.replicas().get(i);
+      String name = "replica-" + (i + 1);
+
+//      Same pool settings as the primary
+      HikariConfig config = new HikariConfig();
+      primaryDataSource.copyStateTo(config);
+      config.setPoolName(name);
+      config.setJdbcUrl(replica.url());
+      config.setUsername(replica.username() != null ? replica.username() : primaryDataSource.getUsername());
+      config.setPassword(replica.password() != null ? replica.password() : primaryDataSource.getPassword());
+      config.setConnectionTimeout(properties.connectionTimeout().toMillis());
+      config.setReadOnly(true);
+      config.setInitializationFailTimeout(-1); // a replica that is down must not stop the startup
+      config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+      replicas.add(new ReplicaRouter.Replica(name, new HikariDataSource(config), properties.connectionTimeout()));
+    }
+    return new ReplicaRouter(replicas, properties.maxLag(), meterRegistry);
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRouter replicaRouter) {
+    DataSource target = replicaRouter.hasReplicas()
+        ? new ReplicaRoutingDataSource(primaryDataSource, replicaRouter)
+        : primaryDataSource;
+    return new LazyConnectionDataSourceProxy(target);
+  }
+}
@@ -0,0 +1,46 @@
+package com.mina.authentication.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The bulkheads of the database work. Their limits stay below the pool size, so a burst of one kind of work leaves connections
+ * for the others.
+ * <p>
+ * A permit is taken around the whole transaction, not a single statement: the connection is only fetched by the first
+ * statement but stays bound to the transaction until it completes, and the permit has to cover it all that time.
+ */
+@Component
+public class DatabaseBulkheads {
+
+  private final Bulkhead authReads;
+  private final Bulkhead attemptWrites;
+
+  public DatabaseBulkheads(MeterRegistry meterRegistry,
+      @Value("${authentication.database-bulkheads.auth-reads.max-concurrent:6}") int authReadsMaxConcurrent,
+      @Value("${authentication.database-bulkheads.auth-reads.max-wait:500ms}") Duration authReadsMaxWait,
+      @Value("${authentication.database-bulkheads.attempt-writes.max-concurrent:2}") int attemptWritesMaxConcurrent,
+      @Value("${authentication.database-bulkheads.attempt-writes.max-wait:500ms}") Duration attemptWritesMaxWait,
+      @Value("${authentication.database-bulkheads.retry-after:1s}") Duration retryAfter) {
+    this.authReads = new Bulkhead("auth_reads", authReadsMaxConcurrent, authReadsMaxWait, retryAfter, meterRegistry);
+    this.attemptWrites = new Bulkhead("attempt_writes", attemptWritesMaxConcurrent, attemptWritesMaxWait, retryAfter,
+        meterRegistry);
+  }
+
+  /**
+   * User lookups and login attempt reads, on the path of every login and authenticated request.
+   */
+  public Bulkhead authReads() {
+    return authReads;
+  }
+
+  /**
+   * Login attempt inserts and the login statistics written with them, of the write-behind flusher and of logins writing their
+   * attempt themselves.
+   */
+  public Bulkhead attemptWrites() {
+    return attemptWrites;
+  }
+}
@@ -1,15 +1,21 @@
 package com.mina.authentication.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mina.authentication.controller.dto.ApiErrorResponse;
 import com.mina.authentication.exceptions.AccessDeniedException;
+import com.mina.authentication.exceptions.ServiceUnavailableException;
+import com.mina.authentication.exceptions.TokenExpiredException;
+import com.mina.authentication.helper.ErrorBodies;
 import com.mina.authentication.helper.JwtHelper;
+import com.mina.authentication.jfr.AuthFilterEvent;
+import com.mina.authentication.service.TokenRevocationService;
 import com.mina.authentication.service.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -20,57 +26,99 @@ import org.springframework.web.filter.OncePerRequestFilter;
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
 
+  private static final String MALFORMED = "Access denied: malformed JWT";
+
+  private final JwtHelper jwtHelper;
   private final UserDetailsServiceImpl userDetailsService;
-  private final ObjectMapper objectMapper;
+  private final TokenRevocationService tokenRevocationService;
+  private final ErrorBodies errorBodies;
+  private final AuthMetrics metrics;
 
-  public JwtAuthFilter(UserDetailsServiceImpl userDetailsService, ObjectMapper objectMapper) {
+  public JwtAuthFilter(JwtHelper jwtHelper, UserDetailsServiceImpl userDetailsService,
+      TokenRevocationService tokenRevocationService, ErrorBodies errorBodies, AuthMetrics metrics) {
+    this.jwtHelper = jwtHelper;
     this.userDetailsService = userDetailsService;
-    this.objectMapper = objectMapper;
+    this.tokenRevocationService = tokenRevocationService;
+    this.errorBodies = errorBodies;
+    this.metrics = metrics;
   }
 
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
+    AuthFilterEvent event = new AuthFilterEvent();
+    event.begin();
     try {
       String authHeader = request.getHeader("Authorization");
 
-      String token = null;
-      String username = null;
-      if (authHeader != null && authHeader.startsWith("Bearer ")) {
-        token = authHeader.substring(7);
-        username = JwtHelper.extractUsername(token);
-      }
-
 //      If the accessToken is null. It will pass the request to next filter in the chain.
 //      Any login and signup requests will not have jwt token in their header, therefore they will be passed to next filter chain.
-      if (token == null) {
+      if (authHeader == null || !authHeader.startsWith("Bearer ")) {
         filterChain.doFilter(request, response);
         return;
       }
 
-//       If any accessToken is present, then it will validate the token and then authenticate the request in security context
-      if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-        if (JwtHelper.validateToken(token, userDetails)) {
-          UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(userDetails, null, null);
-          authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-          SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-        }
+      String token = authHeader.substring(7);
+//      Garbage is rejected before it reaches the parser, which would throw for it
+      if (!JwtHelper.isWellFormed(token)) {
+        commit(event, request, "malformed");
+        writeError(response, HttpServletResponse.SC_FORBIDDEN, MALFORMED);
+        return;
       }
-
+      metrics.operation("token_validation", () -> authenticate(request, token));
+      commit(event, request, "authenticated");
       filterChain.doFilter(request, response);
     } catch (AccessDeniedException e) {
-      ApiErrorResponse errorResponse = new ApiErrorResponse(HttpServletResponse.SC_FORBIDDEN, e.getMessage());
-      response.setStatus(HttpServletResponse.SC_FORBIDDEN);
-      response.getWriter().write(toJson(errorResponse));
+      commit(event, request, e instanceof TokenExpiredException ? "expired" : "denied");
+      writeError(response, HttpServletResponse.SC_FORBIDDEN, e.getMessage());
+    } catch (ServiceUnavailableException e) { // the user lookup was rejected, e.g. by a full bulkhead
+      commit(event, request, "unavailable");
+      response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())));
+      writeError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
     }
   }
 
-  private String toJson(ApiErrorResponse response) {
-    try {
-      return objectMapper.writeValueAsString(response);
-    } catch (Exception e) {
-      return ""; // Return an empty string if serialization fails
+  private Claims authenticate(HttpServletRequest request, String token) {
+//    The token is parsed and verified exactly once, the claims are shared with the controllers through a request attribute.
+    Claims claims = metrics.stage("token_verify", () -> jwtHelper.verify(token));
+    if (metrics.stage("revocation_check", () -> tokenRevocationService.isRevoked(claims.getId()))) {
+      throw new AccessDeniedException("Access denied: token has been revoked");
     }
+    String username = claims.getSubject();
+    request.setAttribute(JwtHelper.CLAIMS_ATTRIBUTE, claims);
+
+//    If any accessToken is present, then it will validate the token and then authenticate the request in security context
+    if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+      UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+      if (jwtHelper.validateToken(claims, userDetails)) {
+        UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(userDetails, null,
+            userDetails.getAuthorities());
+        authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+      }
+    }
+    return claims;
+  }
+
+  // Once per request: an exception of the rest of the chain is not an outcome of the token
+  private static void commit(AuthFilterEvent event, HttpServletRequest request, String outcome) {
+    if (event.outcome != null) {
+      return;
+    }
+    event.outcome = outcome;
+    event.end();
+    if (event.shouldCommit()) {
+      event.path = request.getRequestURI();
+      event.commit();
+    }
+  }
+
+  // The body is written as prepared bytes, a rejection costs no serialization
+  private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+    byte[] body = errorBodies.of(status, message);
+    response.setStatus(status);
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
   }
 }
@@ -0,0 +1,24 @@
+package com.mina.authentication.config;
+
+import com.mina.authentication.helper.JwtKeys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(JwtProperties.class)
+public class JwtConfig {
+
+  private static final Logger log = LoggerFactory.getLogger(JwtConfig.class);
+
+  @Bean
+  public JwtKeys jwtKeys(JwtProperties properties) {
+    if (properties.keys().isEmpty()) {
+      log.warn("No signing keys configured (authentication.jwt.keys), using an ephemeral key: tokens are only valid on this node");
+      return JwtKeys.ephemeral();
+    }
+    return JwtKeys.load(properties);
+  }
+}
@@ -0,0 +1,27 @@
+package com.mina.authentication.config;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.core.io.Resource;
+
+/**
+ * Token settings. Tokens are signed with the active key; every configured key, active or retiring, is used to verify tokens and
+ * is published in the JWKS.
+ *
+ * @param expiration lifetime of the issued tokens
+ * @param verifiedTokensSize maximum number of verified tokens kept in memory
+ * @param activeKeyId id ({@code kid}) of the key new tokens are signed with
+ * @param keys EC P-256 (ES256) or Ed25519 (EdDSA) keys in PEM format, retiring keys only need their public key
+ */
+@ConfigurationProperties("authentication.jwt")
+public record JwtProperties(@DefaultValue("60m") Duration expiration,
+                            @DefaultValue("10000") int verifiedTokensSize,
+                            String activeKeyId,
+                            @DefaultValue List<Key> keys) {
+
+  public record Key(String id, Resource privateKey, Resource publicKey) {
+
+  }
+}
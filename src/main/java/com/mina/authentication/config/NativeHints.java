@@ -0,0 +1,71 @@
+package com.mina.authentication.config;
+
+import com.mina.authentication.controller.dto.ApiErrorResponse;
+import com.mina.authentication.domain.LoginAttempt;
+import com.mina.authentication.domain.LoginStats;
+import com.mina.authentication.domain.RefreshToken;
+import com.mina.authentication.domain.User;
+import com.mina.authentication.service.LoginAttemptSpool;
+import com.mina.authentication.service.UserImporter;
+import java.util.List;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+/**
+ * Reflection and resource hints for the native image, for what the AOT processing cannot find on its own. Request and response
+ * bodies of the controller methods are registered by Spring MVC, the rest is listed here.
+ * <p>
+ * springdoc is not listed: its own {@code SpringDocHints}, registered in its {@code aot.factories}, covers the OpenAPI model it
+ * serializes, and the Swagger UI webjar is served from {@code META-INF/resources}, which Spring Boot registers for every web
+ * application.
+ */
+public class NativeHints implements RuntimeHintsRegistrar {
+
+  // Instantiated by name through io.jsonwebtoken.lang.Classes, the Jackson (de)serializer is found with the ServiceLoader
+  private static final List<String> JJWT_IMPLEMENTATIONS = List.of(
+      "io.jsonwebtoken.impl.DefaultClaimsBuilder",
+      "io.jsonwebtoken.impl.DefaultJwtBuilder",
+      "io.jsonwebtoken.impl.DefaultJwtHeaderBuilder",
+      "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+      "io.jsonwebtoken.impl.io.StandardCompressionAlgorithms",
+      "io.jsonwebtoken.impl.security.DefaultDynamicJwkBuilder",
+      "io.jsonwebtoken.impl.security.DefaultJwkParserBuilder",
+      "io.jsonwebtoken.impl.security.DefaultJwkSetBuilder",
+      "io.jsonwebtoken.impl.security.DefaultJwkSetParserBuilder",
+      "io.jsonwebtoken.impl.security.DefaultKeyOperationBuilder",
+      "io.jsonwebtoken.impl.security.DefaultKeyOperationPolicyBuilder",
+      "io.jsonwebtoken.impl.security.JwksBridge",
+      "io.jsonwebtoken.impl.security.KeysBridge",
+      "io.jsonwebtoken.impl.security.StandardCurves",
+      "io.jsonwebtoken.impl.security.StandardEncryptionAlgorithms",
+      "io.jsonwebtoken.impl.security.StandardHashAlgorithms",
+      "io.jsonwebtoken.impl.security.StandardKeyAlgorithms",
+      "io.jsonwebtoken.impl.security.StandardKeyOperations",
+      "io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms",
+      "io.jsonwebtoken.jackson.io.JacksonDeserializer",
+      "io.jsonwebtoken.jackson.io.JacksonSerializer");
+
+  @Override
+  public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+    // Rows are mapped through the record constructor, batch parameters are read through the accessors
+    for (Class<?> row : List.of(User.class, LoginAttempt.class, LoginStats.class, RefreshToken.class,
+        LoginAttemptSpool.Offset.class)) {
+      hints.reflection().registerType(row, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+    }
+
+    // Serialized by ErrorBodies and read by the UserImporter, outside of any controller method
+    new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+        ApiErrorResponse.class, UserImporter.ImportRecord.class);
+
+    for (String implementation : JJWT_IMPLEMENTATIONS) {
+      hints.reflection().registerType(TypeReference.of(implementation), MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+          MemberCategory.INVOKE_PUBLIC_METHODS);
+    }
+
+    hints.resources().registerPattern("db/changelog-master.xml");
+    hints.resources().registerPattern("db/changelogs/*.xml");
+  }
+}
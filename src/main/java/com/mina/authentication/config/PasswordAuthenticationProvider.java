@@ -0,0 +1,22 @@
+package com.mina.authentication.config;
+
+import com.mina.authentication.exceptions.InvalidCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * {@link DaoAuthenticationProvider} that rejects wrong passwords with a stackless exception, they are the most frequent
+ * rejection of a credential stuffing attack.
+ */
+public class PasswordAuthenticationProvider extends DaoAuthenticationProvider {
+
+  @Override
+  protected void additionalAuthenticationChecks(UserDetails userDetails, UsernamePasswordAuthenticationToken authentication) {
+    Object credentials = authentication.getCredentials();
+    if (credentials == null || !getPasswordEncoder().matches(credentials.toString(), userDetails.getPassword())) {
+      throw new InvalidCredentialsException(
+          messages.getMessage("AbstractUserDetailsAuthenticationProvider.badCredentials", "Bad credentials"));
+    }
+  }
+}
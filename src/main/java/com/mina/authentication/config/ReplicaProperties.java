@@ -0,0 +1,26 @@
+package com.mina.authentication.config;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Read replicas of the primary in {@code spring.datasource}. Read-only transactions are spread over the healthy replicas, all
+ * other statements go to the primary.
+ *
+ * @param replicas replicas with their own url, the credentials default to the primary's
+ * @param maxLag replicas further behind the primary than this are not used until they have caught up
+ * @param healthCheckInterval how often the lag of every replica is measured
+ * @param connectionTimeout how long a read waits for a replica connection before it falls back to the primary
+ */
+@ConfigurationProperties("authentication.datasource")
+public record ReplicaProperties(@DefaultValue List<Replica> replicas,
+                                @DefaultValue("1s") Duration maxLag,
+                                @DefaultValue("PT5S") Duration healthCheckInterval,
+                                @DefaultValue("1s") Duration connectionTimeout) {
+
+  public record Replica(String url, String username, String password) {
+
+  }
+}
@@ -0,0 +1,140 @@
+package com.mina.authentication.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Picks the replica of the next read-only transaction, round-robin over the healthy replicas. A replica is healthy while it
+ * answers the periodic lag query with a lag within the tolerance; until the first check succeeds every read goes to the primary.
+ */
+public class ReplicaRouter implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(ReplicaRouter.class);
+
+  // A replica that has replayed everything it received is up to date, however old its last replayed transaction is.
+  // Servers that are not in recovery have no lag.
+  private static final String LAG = """
+      SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+        ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END""";
+
+  public static final class Replica {
+
+    private final String name;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private volatile double lagSeconds = Double.NaN;
+    private volatile boolean healthy;
+
+    Replica(String name, DataSource dataSource, Duration queryTimeout) {
+      this.name = name;
+      this.dataSource = dataSource;
+      this.jdbcTemplate = new JdbcTemplate(dataSource);
+      this.jdbcTemplate.setQueryTimeout(Math.max(1, (int) queryTimeout.toSeconds()));
+    }
+
+    public String name() {
+      return name;
+    }
+
+    public DataSource dataSource() {
+      return dataSource;
+    }
+  }
+
+  private final List<Replica> replicas;
+  private final Duration maxLag;
+  private final AtomicInteger next = new AtomicInteger();
+  private volatile List<Replica> healthy = List.of();
+
+  public ReplicaRouter(List<Replica> replicas, Duration maxLag, MeterRegistry meterRegistry) {
+    this.replicas = replicas;
+    this.maxLag = maxLag;
+    for (Replica replica : replicas) {
+      Gauge.builder("datasource.replica.lag", replica, r -> r.lagSeconds)
+          .description("Replication lag of the replica at its last health check, NaN when it could not be measured")
+          .baseUnit("seconds")
+          .tag("replica", replica.name)
+          .register(meterRegistry);
+      Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+          .description("1 while the replica serves read-only transactions")
+          .tag("replica", replica.name)
+          .register(meterRegistry);
+    }
+  }
+
+  public boolean hasReplicas() {
+    return !replicas.isEmpty();
+  }
+
+  /**
+   * @return the replica of the next read-only transaction, or null to use the primary
+   */
+  public Replica next() {
+    List<Replica> candidates = healthy;
+    if (candidates.isEmpty()) {
+      return null;
+    }
+    return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+  }
+
+  @Override
+  public void close() throws Exception {
+    for (Replica replica : replicas) {
+      if (replica.dataSource instanceof AutoCloseable closeable) {
+        closeable.close();
+      }
+    }
+  }
+
+  void markUnhealthy(Replica replica, Exception cause) {
+    synchronized (this) {
+      if (!replica.healthy) {
+        return;
+      }
+      replica.healthy = false;
+      updateHealthy();
+    }
+    log.warn("Replica {} failed, reading from the primary until it recovers: {}", replica.name, cause.getMessage());
+  }
+
+  @Scheduled(fixedDelayString = "${authentication.datasource.health-check-interval:PT5S}")
+  public void checkHealth() {
+    for (Replica replica : replicas) {
+      boolean wasHealthy = replica.healthy;
+      String problem = null;
+      try {
+        Double lag = replica.jdbcTemplate.queryForObject(LAG, Double.class);
+        replica.lagSeconds = lag == null ? 0 : lag;
+        if (replica.lagSeconds > maxLag.toMillis() / 1000.0) {
+          problem = String.format("lags %.1fs behind the primary", replica.lagSeconds);
+        }
+      } catch (RuntimeException e) {
+        replica.lagSeconds = Double.NaN;
+        problem = "cannot be reached: " + e.getMessage();
+      }
+
+      synchronized (this) {
+        replica.healthy = problem == null;
+        updateHealthy();
+      }
+      if (wasHealthy && problem != null) {
+        log.warn("Replica {} {}, reading from the primary until it recovers", replica.name, problem);
+      } else if (!wasHealthy && problem == null) {
+        log.info("Replica {} is serving reads", replica.name);
+      }
+    }
+  }
+
+  // guarded by this
+  private void updateHealthy() {
+    healthy = replicas.stream().filter(replica -> replica.healthy).toList();
+  }
+}
@@ -0,0 +1,43 @@
+package com.mina.authentication.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hands out replica connections inside read-only transactions and primary connections everywhere else. It has to be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, the transaction is only marked read-only after the
+ * transaction manager has asked for its connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+  private final DataSource primary;
+  private final ReplicaRouter router;
+
+  public ReplicaRoutingDataSource(DataSource primary, ReplicaRouter router) {
+    this.primary = primary;
+    this.router = router;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      ReplicaRouter.Replica replica = router.next();
+      if (replica != null) {
+        try {
+          return replica.dataSource().getConnection();
+        } catch (SQLException e) {
+          router.markUnhealthy(replica, e); // the primary serves the reads until the next health check succeeds
+        }
+      }
+    }
+    return primary.getConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return primary.getConnection(username, password);
+  }
+}
@@ -1,6 +1,8 @@
 package com.mina.authentication.config;
 
 import com.mina.authentication.service.UserDetailsServiceImpl;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -10,10 +12,12 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 @Configuration
 @EnableWebSecurity
@@ -28,12 +32,32 @@ public class SecurityConfig {
   }
 
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public PasswordEncoder passwordEncoder(AuthMetrics metrics,
+      @Value("${authentication.password-hashing.threads:0}") int threads,
+      @Value("${authentication.password-hashing.queue-capacity:100}") int queueCapacity,
+      @Value("${authentication.password-hashing.queue-timeout:2s}") Duration queueTimeout,
+      @Value("${authentication.password-hashing.retry-after:1s}") Duration retryAfter,
+      @Value("${authentication.password-hashing.strength:0}") int strength,
+      @Value("${authentication.password-hashing.target-latency:100ms}") Duration targetLatency,
+      @Value("${authentication.password-hashing.min-strength:10}") int minStrength,
+      @Value("${authentication.password-hashing.max-strength:14}") int maxStrength,
+      @Value("${authentication.password-hashing.rehash-tolerance:1}") int rehashTolerance) {
+//    BCrypt is CPU bound, running more hashes in parallel than we have cores only makes every one of them slower
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    int calibrated = strength > 0 ? strength : CalibratedPasswordEncoder.calibrate(targetLatency, minStrength, maxStrength);
+    return new BoundedPasswordEncoder(new CalibratedPasswordEncoder(calibrated, rehashTolerance), poolSize, queueCapacity,
+        queueTimeout, retryAfter, metrics);
   }
 
   @Bean
-  public SecurityFilterChain filterChain(HttpSecurity http, AuthenticationManager authenticationManager) throws Exception {
+  public SecurityFilterChain filterChain(HttpSecurity http, AuthenticationManager authenticationManager,
+      @Value("${server.port:8080}") int serverPort,
+      @Value("${management.server.port:-1}") int managementPort) throws Exception {
+//    Only a management port of its own is trusted, the metrics must not be served on the public port
+    boolean separateManagementPort = managementPort > 0 && managementPort != serverPort;
+    RequestMatcher managementEndpoints = new AndRequestMatcher(
+        request -> separateManagementPort && request.getLocalPort() == managementPort,
+        AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/actuator/**"));
     return http
         .cors(AbstractHttpConfigurer::disable)
         .csrf(AbstractHttpConfigurer::disable)
@@ -43,7 +67,11 @@ public class SecurityConfig {
 //            our public endpoints
             .requestMatchers(HttpMethod.POST, "/api/auth/signup/**").permitAll()
             .requestMatchers(HttpMethod.POST, "/api/auth/login/**").permitAll()
+            .requestMatchers(HttpMethod.POST, "/api/auth/refresh/**").permitAll()
             .requestMatchers(HttpMethod.GET, "/authentication-docs/**").permitAll()
+            .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+            .requestMatchers(managementEndpoints).permitAll()
+            .requestMatchers(HttpMethod.GET, "/.well-known/jwks.json").permitAll()
 //            our private endpoints
             .anyRequest().authenticated())
         .authenticationManager(authenticationManager)
@@ -56,9 +84,14 @@ public class SecurityConfig {
   }
 
   @Bean
-  public AuthenticationManager authenticationManager(HttpSecurity http) throws Exception {
+  public AuthenticationManager authenticationManager(HttpSecurity http, PasswordEncoder passwordEncoder) throws Exception {
+    PasswordAuthenticationProvider authenticationProvider = new PasswordAuthenticationProvider();
+    authenticationProvider.setUserDetailsService(userDetailsService);
+    authenticationProvider.setPasswordEncoder(passwordEncoder);
+//    Hashes of another strength are replaced on a successful login, see CalibratedPasswordEncoder
+    authenticationProvider.setUserDetailsPasswordService(userDetailsService);
     AuthenticationManagerBuilder authenticationManagerBuilder = http.getSharedObject(AuthenticationManagerBuilder.class);
-    authenticationManagerBuilder.userDetailsService(userDetailsService).passwordEncoder(passwordEncoder());
+    authenticationManagerBuilder.authenticationProvider(authenticationProvider);
     return authenticationManagerBuilder.build();
   }
 }
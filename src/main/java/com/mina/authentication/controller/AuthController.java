@@ -1,6 +1,7 @@
 
 package com.mina.authentication.controller;
 
+import com.mina.authentication.config.AuthMetrics;
 import com.mina.authentication.controller.dto.SignupRequest;
 import com.mina.authentication.helper.JwtHelper;
 import com.mina.authentication.service.UserService;
@@ -8,40 +9,82 @@ import com.mina.authentication.controller.dto.ApiErrorResponse;
 import com.mina.authentication.controller.dto.LoginAttemptResponse;
 import com.mina.authentication.controller.dto.LoginRequest;
 import com.mina.authentication.controller.dto.LoginResponse;
+import com.mina.authentication.controller.dto.LoginStatsResponse;
+import com.mina.authentication.controller.dto.RefreshRequest;
 import com.mina.authentication.domain.LoginAttempt;
+import com.mina.authentication.domain.LoginAttemptCursor;
+import com.mina.authentication.domain.LoginAttemptFilter;
+import com.mina.authentication.domain.LoginAttemptPage;
+import com.mina.authentication.domain.LoginStats;
+import com.mina.authentication.domain.LoginStats.Granularity;
+import com.mina.authentication.exceptions.AccessDeniedException;
+import com.mina.authentication.exceptions.BadRequestException;
+import com.mina.authentication.repository.LoginAttemptRepository;
+import com.mina.authentication.service.LoginLockout;
 import com.mina.authentication.service.LoginService;
+import com.mina.authentication.service.LoginStatsService;
+import com.mina.authentication.service.RefreshTokenService;
+import com.mina.authentication.service.TokenRevocationService;
+import com.mina.authentication.service.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.validation.Valid;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping(path = "/api/auth", produces = MediaType.APPLICATION_JSON_VALUE)
 public class AuthController {
 
+  static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  private static final int MAX_PAGE_SIZE = 100;
+
   private final AuthenticationManager authenticationManager;
   private final UserService userService;
   private final LoginService loginService;
+  private final LoginLockout loginLockout;
+  private final LoginStatsService loginStatsService;
+  private final RefreshTokenService refreshTokenService;
+  private final TokenRevocationService tokenRevocationService;
+  private final JwtHelper jwtHelper;
+  private final AuthMetrics metrics;
 
-  public AuthController(AuthenticationManager authenticationManager, UserService userService, LoginService loginService) {
+  public AuthController(AuthenticationManager authenticationManager, UserService userService, LoginService loginService,
+      LoginLockout loginLockout, LoginStatsService loginStatsService, RefreshTokenService refreshTokenService,
+      TokenRevocationService tokenRevocationService, JwtHelper jwtHelper, AuthMetrics metrics) {
     this.authenticationManager = authenticationManager;
+    this.jwtHelper = jwtHelper;
     this.userService = userService;
     this.loginService = loginService;
+    this.loginLockout = loginLockout;
+    this.loginStatsService = loginStatsService;
+    this.refreshTokenService = refreshTokenService;
+    this.tokenRevocationService = tokenRevocationService;
+    this.metrics = metrics;
   }
 
   @Operation(summary = "Signup user")
@@ -49,9 +92,10 @@ public class AuthController {
   @ApiResponse(responseCode = "404", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
   @ApiResponse(responseCode = "409", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
   @ApiResponse(responseCode = "500", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  @ApiResponse(responseCode = "503", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
   @PostMapping("/signup")
   public ResponseEntity<Void> signup(@Valid @RequestBody SignupRequest requestDto) {
-    userService.signup(requestDto);
+    metrics.operation("signup", () -> userService.signup(requestDto));
     return ResponseEntity.status(HttpStatus.CREATED).build();
   }
 
@@ -59,30 +103,124 @@ public class AuthController {
   @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = LoginResponse.class)))
   @ApiResponse(responseCode = "401", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
   @ApiResponse(responseCode = "404", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  @ApiResponse(responseCode = "429", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
   @ApiResponse(responseCode = "500", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  @ApiResponse(responseCode = "503", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
   @PostMapping(value = "/login")
   public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request) {
-    try {
-      authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(request.email(), request.password()));
-    } catch (BadCredentialsException e) {
-      loginService.addLoginAttempt(request.email(), false);
-      throw e;
-    }
+    return metrics.operation("login", () -> {
+//      A locked account is rejected before its password is hashed
+      metrics.stage("lockout_check", () -> loginLockout.check(request.email()));
+      try {
+        metrics.stage("authenticate", () ->
+            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(request.email(), request.password())));
+      } catch (BadCredentialsException e) {
+        metrics.stage("attempt_record", () -> loginService.addLoginAttempt(request.email(), false));
+        loginLockout.recordFailure(request.email());
+        throw e;
+      }
 
-    String token = JwtHelper.generateToken(request.email());
-    loginService.addLoginAttempt(request.email(), true);
-    return ResponseEntity.ok(new LoginResponse(request.email(), token));
+      String token = metrics.stage("token_generate", () -> jwtHelper.generateToken(request.email()));
+      String refreshToken = metrics.stage("refresh_issue", () -> refreshTokenService.issue(request.email()));
+      metrics.stage("attempt_record", () -> loginService.addLoginAttempt(request.email(), true));
+      loginLockout.recordSuccess(request.email());
+      return ResponseEntity.ok(new LoginResponse(request.email(), token, refreshToken));
+    });
   }
 
-  @Operation(summary = "Get recent login attempts")
+  @Operation(summary = "Exchange a refresh token for a new token and refresh token")
   @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = LoginResponse.class)))
+  @ApiResponse(responseCode = "401", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  @ApiResponse(responseCode = "500", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  @PostMapping(value = "/refresh")
+  public ResponseEntity<LoginResponse> refresh(@Valid @RequestBody RefreshRequest request) {
+    return metrics.operation("refresh", () -> {
+      RefreshTokenService.Rotation rotation = metrics.stage("refresh_rotate", () -> refreshTokenService.rotate(request.refreshToken()));
+      String token = metrics.stage("token_generate", () -> jwtHelper.generateToken(rotation.email()));
+      return ResponseEntity.ok(new LoginResponse(rotation.email(), token, rotation.refreshToken()));
+    });
+  }
+
+  @Operation(summary = "Revoke the token, and the refresh token family when given")
+  @ApiResponse(responseCode = "204")
+  @ApiResponse(responseCode = "400", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  @ApiResponse(responseCode = "403", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  @ApiResponse(responseCode = "500", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  @PostMapping(value = "/logout")
+  public ResponseEntity<Void> logout(@RequestAttribute(JwtHelper.CLAIMS_ATTRIBUTE) Claims claims,
+      @Valid @RequestBody(required = false) RefreshRequest request) {
+    metrics.operation("logout", () -> {
+      if (claims.getId() != null) {
+        tokenRevocationService.revoke(claims.getId(), claims.getSubject(), claims.getExpiration().toInstant());
+      }
+      if (request != null) {
+        refreshTokenService.revoke(request.refreshToken(), claims.getSubject());
+      }
+    });
+    return ResponseEntity.noContent().build();
+  }
+
+  @Operation(summary = "Get login attempts, newest first",
+      description = "Without parameters the 10 most recent attempts. The next page is requested with the cursor returned in the "
+          + NEXT_CURSOR_HEADER + " header, which is missing on the last page.")
+  @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = LoginAttemptResponse.class)),
+      headers = @Header(name = NEXT_CURSOR_HEADER, description = "cursor of the next page"))
+  @ApiResponse(responseCode = "400", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
   @ApiResponse(responseCode = "403", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))//forbidden
   @ApiResponse(responseCode = "500", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
   @GetMapping(value = "/loginAttempts")
-  public ResponseEntity<List<LoginAttemptResponse>> loginAttempts(@RequestHeader("Authorization") String token) {
-    String email = JwtHelper.extractUsername(token.replace("Bearer ", ""));
-    List<LoginAttempt> loginAttempts = loginService.findRecentLoginAttempts(email);
-    return ResponseEntity.ok(convertToDTOs(loginAttempts));
+  public ResponseEntity<List<LoginAttemptResponse>> loginAttempts(@RequestAttribute(JwtHelper.CLAIMS_ATTRIBUTE) Claims claims,
+      @Parameter(description = "page size, at most 100") @RequestParam(defaultValue = "" + LoginAttemptRepository.RECENT_COUNT) int size,
+      @Parameter(description = "cursor returned with the previous page") @RequestParam(required = false) String cursor,
+      @Parameter(description = "attempts at or after") @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime from,
+      @Parameter(description = "attempts before") @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime to,
+      @Parameter(description = "only successful or only failed attempts") @RequestParam(required = false) Boolean success) {
+    if (size < 1 || size > MAX_PAGE_SIZE) {
+      throw new BadRequestException("size must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    String email = claims.getSubject();
+    LoginAttemptCursor after = cursor == null ? null : LoginAttemptCursor.decode(cursor);
+    LoginAttemptPage page = loginService.findLoginAttempts(email, new LoginAttemptFilter(from, to, success), after, size);
+
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (page.next() != null) {
+      response.header(NEXT_CURSOR_HEADER, page.next().encode());
+    }
+    return response.body(convertToDTOs(page.loginAttempts()));
+  }
+
+  @Operation(summary = "Get login counts per minute or day",
+      description = "Counts of the authenticated user, or of all users for an admin with allUsers. Buckets without attempts are omitted.")
+  @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = LoginStatsResponse.class)))
+  @ApiResponse(responseCode = "400", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  @ApiResponse(responseCode = "403", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  @ApiResponse(responseCode = "500", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  @GetMapping(value = "/loginStats")
+  public ResponseEntity<List<LoginStatsResponse>> loginStats(@RequestAttribute(JwtHelper.CLAIMS_ATTRIBUTE) Claims claims,
+      @Parameter(hidden = true) Authentication authentication,
+      @Parameter(description = "minute or day") @RequestParam(defaultValue = "day") String granularity,
+      @Parameter(description = "start, by default an hour or 30 days before to") @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime from,
+      @Parameter(description = "end, by default now") @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime to,
+      @Parameter(description = "only the attempts of this user, must be the authenticated user") @RequestParam(required = false) String email,
+      @Parameter(description = "the attempts of all users, admins only") @RequestParam(defaultValue = "false") boolean allUsers) {
+    if (email != null && !email.equals(claims.getSubject())) {
+      throw new AccessDeniedException("Access denied: statistics of other users");
+    }
+    if (allUsers && (authentication == null || authentication.getAuthorities().stream()
+        .noneMatch(authority -> UserDetailsServiceImpl.ADMIN_AUTHORITY.equals(authority.getAuthority())))) {
+      throw new AccessDeniedException("Access denied: statistics of all users");
+    }
+    String subject = allUsers ? LoginStats.ALL_USERS : claims.getSubject();
+    Granularity unit = switch (granularity.toLowerCase(Locale.ROOT)) {
+      case "minute" -> Granularity.MINUTE;
+      case "day" -> Granularity.DAY;
+      default -> throw new BadRequestException("granularity must be minute or day");
+    };
+    LocalDateTime end = to != null ? to : LocalDateTime.now();
+    LocalDateTime start = from != null ? from : end.minus(unit == Granularity.MINUTE ? Duration.ofHours(1) : Duration.ofDays(30));
+
+    List<LoginStats> loginStats = loginStatsService.findLoginStats(subject, unit, start, end);
+    return ResponseEntity.ok(loginStats.stream().map(LoginStatsResponse::convertToDTO).toList());
   }
 
   private List<LoginAttemptResponse> convertToDTOs(List<LoginAttempt> loginAttempts) {
@@ -0,0 +1,41 @@
+package com.mina.authentication.controller;
+
+import com.mina.authentication.helper.JwtKeys;
+import io.jsonwebtoken.security.Jwks;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import java.security.interfaces.ECPublicKey;
+import java.time.Duration;
+import java.util.stream.Collectors;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class JwksController {
+
+  // Retiring keys stay published for at least a token lifetime, so verifiers can cache the set for a while
+  private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofMinutes(15)).cachePublic();
+
+  // The keys do not change while running, the set is rendered once
+  private final String jwkSet;
+
+  public JwksController(JwtKeys keys) {
+    this.jwkSet = keys.verificationKeys().entrySet().stream()
+        .map(entry -> Jwks.json(Jwks.builder().key(entry.getValue())
+            .id(entry.getKey())
+            .algorithm(entry.getValue() instanceof ECPublicKey ? "ES256" : "EdDSA") // JwtKeys only loads P-256 EC keys
+            .publicKeyUse("sig")
+            .build()))
+        .collect(Collectors.joining(",", "{\"keys\":[", "]}"));
+  }
+
+  @Operation(summary = "Public keys to verify the issued tokens with")
+  @ApiResponse(responseCode = "200")
+  @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<String> jwks() {
+    return ResponseEntity.ok().cacheControl(CACHE_CONTROL).body(jwkSet);
+  }
+}
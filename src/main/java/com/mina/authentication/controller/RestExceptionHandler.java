@@ -2,32 +2,51 @@ package com.mina.authentication.controller;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.CONFLICT;
+import static org.springframework.http.HttpStatus.FORBIDDEN;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
 import static org.springframework.http.HttpStatus.UNAUTHORIZED;
 
-import com.mina.authentication.controller.dto.ApiErrorResponse;
+import com.mina.authentication.exceptions.AccessDeniedException;
+import com.mina.authentication.exceptions.BadRequestException;
 import com.mina.authentication.exceptions.DuplicateException;
+import com.mina.authentication.exceptions.InvalidTokenException;
 import com.mina.authentication.exceptions.NotFoundException;
+import com.mina.authentication.exceptions.ServiceUnavailableException;
+import com.mina.authentication.exceptions.TooManyRequestsException;
+import com.mina.authentication.helper.ErrorBodies;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 @ControllerAdvice
 public class RestExceptionHandler {
 
+  private final ErrorBodies errorBodies;
+
+  public RestExceptionHandler(ErrorBodies errorBodies) {
+    this.errorBodies = errorBodies;
+  }
+
   @ExceptionHandler(NotFoundException.class)
-  public ResponseEntity<ApiErrorResponse> handleNotFoundException(NotFoundException e) {
-    return ResponseEntity.status(NOT_FOUND).body(new ApiErrorResponse(NOT_FOUND.value(), e.getMessage()));
+  public ResponseEntity<byte[]> handleNotFoundException(NotFoundException e) {
+    return error(NOT_FOUND, e.getMessage());
   }
 
   @ExceptionHandler(MethodArgumentNotValidException.class)
-  public ResponseEntity<ApiErrorResponse> handleRequestNotValidException(MethodArgumentNotValidException e) {
+  public ResponseEntity<byte[]> handleRequestNotValidException(MethodArgumentNotValidException e) {
 
     List<String> errors = new ArrayList<>();
     e.getBindingResult()
@@ -37,28 +56,74 @@ public class RestExceptionHandler {
         .forEach(error -> errors.add(error.getObjectName() + ": " + error.getDefaultMessage()));
 
     String message = "Validation of request failed: %s".formatted(String.join(", ", errors));
-    return ResponseEntity.status(BAD_REQUEST).body(new ApiErrorResponse(BAD_REQUEST.value(), message));
+    return error(BAD_REQUEST, message);
+  }
+
+  @ExceptionHandler(BadRequestException.class)
+  public ResponseEntity<byte[]> handleBadRequestException(BadRequestException e) {
+    return error(BAD_REQUEST, e.getMessage());
+  }
+
+  @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+  public ResponseEntity<byte[]> handleArgumentTypeMismatchException(MethodArgumentTypeMismatchException e) {
+    String message = "Invalid value for %s: %s".formatted(e.getName(), e.getValue());
+    return error(BAD_REQUEST, message);
   }
 
   @ExceptionHandler(BadCredentialsException.class)
-  public ResponseEntity<ApiErrorResponse> handleBadCredentialsException() {
-    return ResponseEntity.status(UNAUTHORIZED)
-        .body(new ApiErrorResponse(UNAUTHORIZED.value(), "Invalid username or password"));
+  public ResponseEntity<byte[]> handleBadCredentialsException() {
+    return error(UNAUTHORIZED, "Invalid username or password");
   }
 
   @ExceptionHandler(DuplicateException.class)
-  public ResponseEntity<ApiErrorResponse> handleDuplicateException(DuplicateException e) {
-    return ResponseEntity.status(CONFLICT).body(new ApiErrorResponse(CONFLICT.value(), e.getMessage()));
+  public ResponseEntity<byte[]> handleDuplicateException(DuplicateException e) {
+    return error(CONFLICT, e.getMessage());
   }
 
   @ExceptionHandler(InternalAuthenticationServiceException.class)
-  public ResponseEntity<ApiErrorResponse> handleInternalAuthenticationServiceException(InternalAuthenticationServiceException e) {
-    return ResponseEntity.status(UNAUTHORIZED).body(new ApiErrorResponse(UNAUTHORIZED.value(), e.getMessage()));
+  public ResponseEntity<byte[]> handleInternalAuthenticationServiceException(InternalAuthenticationServiceException e) {
+//    The AuthenticationManager wraps the exceptions of the user lookup, an overload stays a 503
+    if (e.getCause() instanceof ServiceUnavailableException serviceUnavailable) {
+      return handleServiceUnavailableException(serviceUnavailable);
+    }
+    return error(UNAUTHORIZED, e.getMessage());
+  }
+
+  @ExceptionHandler(AccessDeniedException.class)
+  public ResponseEntity<byte[]> handleAccessDeniedException(AccessDeniedException e) {
+    return error(FORBIDDEN, e.getMessage());
+  }
+
+  @ExceptionHandler(InvalidTokenException.class)
+  public ResponseEntity<byte[]> handleInvalidTokenException(InvalidTokenException e) {
+    return error(UNAUTHORIZED, e.getMessage());
+  }
+
+  @ExceptionHandler(ServiceUnavailableException.class)
+  public ResponseEntity<byte[]> handleServiceUnavailableException(ServiceUnavailableException e) {
+    return error(SERVICE_UNAVAILABLE, e.getMessage(), e.getRetryAfter());
+  }
+
+  @ExceptionHandler(TooManyRequestsException.class)
+  public ResponseEntity<byte[]> handleTooManyRequestsException(TooManyRequestsException e) {
+    return error(TOO_MANY_REQUESTS, e.getMessage(), e.getRetryAfter());
   }
 
   @ExceptionHandler(Exception.class)
-  public ResponseEntity<ApiErrorResponse> handleUnknownException(Exception e) {
-    return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiErrorResponse(INTERNAL_SERVER_ERROR.value(), e.getMessage()));
+  public ResponseEntity<byte[]> handleUnknownException(Exception e) {
+    return error(INTERNAL_SERVER_ERROR, e.getMessage());
+  }
+
+  private ResponseEntity<byte[]> error(HttpStatus status, String message) {
+    return ResponseEntity.status(status)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(errorBodies.of(status.value(), message));
   }
 
+  private ResponseEntity<byte[]> error(HttpStatus status, String message, Duration retryAfter) {
+    return ResponseEntity.status(status)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())))
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(errorBodies.of(status.value(), message));
+  }
 }
@@ -6,6 +6,8 @@ public record LoginResponse(
     @Schema(description = "email")
     String email,
     @Schema(description = "JWT token")
-    String token) {
+    String token,
+    @Schema(description = "opaque token to get a new JWT token from /api/auth/refresh, it can be used once")
+    String refreshToken) {
 
 }
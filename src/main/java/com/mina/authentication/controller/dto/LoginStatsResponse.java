@@ -0,0 +1,15 @@
+package com.mina.authentication.controller.dto;
+
+import com.mina.authentication.domain.LoginStats;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDateTime;
+
+public record LoginStatsResponse(
+    @Schema(description = "Start of the minute or day") LocalDateTime bucket,
+    @Schema(description = "Successful logins") long successes,
+    @Schema(description = "Failed logins") long failures) {
+
+  public static LoginStatsResponse convertToDTO(LoginStats loginStats) {
+    return new LoginStatsResponse(loginStats.bucket(), loginStats.successes(), loginStats.failures());
+  }
+}
@@ -0,0 +1,11 @@
+package com.mina.authentication.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshRequest(
+    @Schema(description = "refresh token returned by the last login or refresh")
+    @NotBlank(message = "Refresh token cannot be blank")
+    String refreshToken) {
+
+}
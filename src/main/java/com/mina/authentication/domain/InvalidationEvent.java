@@ -0,0 +1,51 @@
+package com.mina.authentication.domain;
+
+/**
+ * A write that makes the cached copies of other nodes stale, published with {@code NOTIFY} when the write commits. The payload
+ * is {@code sequence:type:key}, the sequence is global so a listener can tell when it missed an event.
+ */
+public record InvalidationEvent(long sequence, Type type, String key) {
+
+  public static final String CHANNEL = "authentication_invalidation";
+
+  public enum Type {
+    USER('u'), REVOKED_TOKEN('r');
+
+    private final char code;
+
+    Type(char code) {
+      this.code = code;
+    }
+
+    /**
+     * The SQL expression of the payload of an event of this type, for a statement that publishes its events with
+     * {@code pg_notify}.
+     */
+    public String payload(String keyExpression) {
+      return "nextval('authentication.invalidation_seq') || ':" + code + ":' || " + keyExpression;
+    }
+  }
+
+  /**
+   * @return null if the payload is not an event. Types this version does not know are returned with a null type, they still
+   * count for the sequence.
+   */
+  public static InvalidationEvent parse(String payload) {
+    int first = payload.indexOf(':');
+    if (first < 0 || payload.length() < first + 3 || payload.charAt(first + 2) != ':') {
+      return null;
+    }
+    long sequence;
+    try {
+      sequence = Long.parseLong(payload, 0, first, 10);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    String key = payload.substring(first + 3);
+    return switch (payload.charAt(first + 1)) {
+      case 'u' -> new InvalidationEvent(sequence, Type.USER, key);
+      case 'r' -> new InvalidationEvent(sequence, Type.REVOKED_TOKEN, key);
+      default -> new InvalidationEvent(sequence, null, key);
+    };
+  }
+}
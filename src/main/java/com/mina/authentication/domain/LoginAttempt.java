@@ -2,7 +2,11 @@ package com.mina.authentication.domain;
 
 import java.time.LocalDateTime;
 
-public record LoginAttempt(String email,
+/**
+ * @param id null until the attempt is written to the database
+ */
+public record LoginAttempt(Long id,
+                           String email,
                            boolean success,
                            LocalDateTime createdAt) {
 
@@ -0,0 +1,43 @@
+package com.mina.authentication.domain;
+
+import com.mina.authentication.exceptions.BadRequestException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position between two stored attempts, encoded as an opaque string for the clients. The next page starts strictly before
+ * (createdAt, id). Only stored attempts have an id, so a cursor is never built from an attempt that is not written yet.
+ */
+public record LoginAttemptCursor(LocalDateTime createdAt, long id) {
+
+  public static LoginAttemptCursor after(LoginAttempt loginAttempt) {
+    return new LoginAttemptCursor(loginAttempt.createdAt(), loginAttempt.id());
+  }
+
+  /**
+   * The position right before a stored attempt, so that the next page starts with it: ids are unique, no attempt lies between
+   * (createdAt, id) and (createdAt, id + 1).
+   */
+  public static LoginAttemptCursor before(LoginAttempt loginAttempt) {
+    return new LoginAttemptCursor(loginAttempt.createdAt(), loginAttempt.id() + 1);
+  }
+
+  public String encode() {
+    String value = createdAt + "," + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  public static LoginAttemptCursor decode(String cursor) {
+    try {
+      String[] value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split(",", 2);
+      if (value.length != 2) {
+        throw new BadRequestException("Invalid cursor: " + cursor);
+      }
+      return new LoginAttemptCursor(LocalDateTime.parse(value[0]), Long.parseLong(value[1]));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new BadRequestException("Invalid cursor: " + cursor);
+    }
+  }
+}
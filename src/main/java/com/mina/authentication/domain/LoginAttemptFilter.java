@@ -0,0 +1,19 @@
+package com.mina.authentication.domain;
+
+import java.time.LocalDateTime;
+
+/**
+ * @param from inclusive lower bound of created_at, or null
+ * @param to exclusive upper bound of created_at, or null
+ * @param success only successful or only failed attempts, or null for both
+ */
+public record LoginAttemptFilter(LocalDateTime from, LocalDateTime to, Boolean success) {
+
+  public static final LoginAttemptFilter NONE = new LoginAttemptFilter(null, null, null);
+
+  public boolean matches(LoginAttempt loginAttempt) {
+    return (from == null || !loginAttempt.createdAt().isBefore(from))
+        && (to == null || loginAttempt.createdAt().isBefore(to))
+        && (success == null || loginAttempt.success() == success);
+  }
+}
@@ -0,0 +1,10 @@
+package com.mina.authentication.domain;
+
+import java.util.List;
+
+/**
+ * @param next cursor of the following page, or null if this is the last page
+ */
+public record LoginAttemptPage(List<LoginAttempt> loginAttempts, LoginAttemptCursor next) {
+
+}
@@ -0,0 +1,31 @@
+package com.mina.authentication.domain;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Login counts of one minute or day, starting at bucket.
+ */
+public record LoginStats(LocalDateTime bucket, long successes, long failures) {
+
+  // Email of the rows counting the attempts of all users
+  public static final String ALL_USERS = "*";
+
+  public enum Granularity {
+    MINUTE(ChronoUnit.MINUTES), DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    Granularity(ChronoUnit unit) {
+      this.unit = unit;
+    }
+
+    public LocalDateTime truncate(LocalDateTime dateTime) {
+      return dateTime.truncatedTo(unit);
+    }
+
+    public long buckets(LocalDateTime from, LocalDateTime to) {
+      return unit.between(truncate(from), to) + 1;
+    }
+  }
+}
@@ -0,0 +1,8 @@
+package com.mina.authentication.domain;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record RefreshToken(UUID familyId, String email, LocalDateTime usedAt) {
+
+}
@@ -1,6 +1,6 @@
 package com.mina.authentication.exceptions;
 
-public class AccessDeniedException extends RuntimeException {
+public class AccessDeniedException extends ApiException {
 
   public AccessDeniedException(String message) {
     super(message);
@@ -0,0 +1,12 @@
+package com.mina.authentication.exceptions;
+
+/**
+ * Base of the exceptions that reject a request with a client error or an overload status. They are thrown in normal operation,
+ * often in bulk by invalid traffic, so they are created without a stack trace.
+ */
+public abstract class ApiException extends RuntimeException {
+
+  protected ApiException(String message) {
+    super(message, null, false, false);
+  }
+}
@@ -0,0 +1,8 @@
+package com.mina.authentication.exceptions;
+
+public class BadRequestException extends ApiException {
+
+  public BadRequestException(String message) {
+    super(message);
+  }
+}
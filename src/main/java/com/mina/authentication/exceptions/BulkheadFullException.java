@@ -0,0 +1,20 @@
+package com.mina.authentication.exceptions;
+
+import java.time.Duration;
+
+/**
+ * A database bulkhead had no free permit within its maximum wait. Answered with a 503 like every other overload.
+ */
+public class BulkheadFullException extends ServiceUnavailableException {
+
+  private final String bulkhead;
+
+  public BulkheadFullException(String bulkhead, Duration retryAfter) {
+    super("Too many concurrent database requests, please retry later", retryAfter);
+    this.bulkhead = bulkhead;
+  }
+
+  public String getBulkhead() {
+    return bulkhead;
+  }
+}
@@ -1,6 +1,6 @@
 package com.mina.authentication.exceptions;
 
-public class DuplicateException extends RuntimeException {
+public class DuplicateException extends ApiException {
 
   public DuplicateException(String message) {
     super(message);
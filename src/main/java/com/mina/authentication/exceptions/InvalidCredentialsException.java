@@ -0,0 +1,18 @@
+package com.mina.authentication.exceptions;
+
+import org.springframework.security.authentication.BadCredentialsException;
+
+/**
+ * A wrong password, handled like every {@link BadCredentialsException} but created without a stack trace.
+ */
+public class InvalidCredentialsException extends BadCredentialsException {
+
+  public InvalidCredentialsException(String message) {
+    super(message);
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
@@ -0,0 +1,8 @@
+package com.mina.authentication.exceptions;
+
+public class InvalidTokenException extends ApiException {
+
+  public InvalidTokenException(String message) {
+    super(message);
+  }
+}
@@ -1,6 +1,6 @@
 package com.mina.authentication.exceptions;
 
-public class NotFoundException extends RuntimeException {
+public class NotFoundException extends ApiException {
 
   public NotFoundException(String message) {
     super(message);
@@ -0,0 +1,8 @@
+package com.mina.authentication.exceptions;
+
+public class TokenExpiredException extends AccessDeniedException {
+
+  public TokenExpiredException(String message) {
+    super(message);
+  }
+}
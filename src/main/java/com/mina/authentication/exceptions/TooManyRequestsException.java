@@ -0,0 +1,17 @@
+package com.mina.authentication.exceptions;
+
+import java.time.Duration;
+
+public class TooManyRequestsException extends ApiException {
+
+  private final Duration retryAfter;
+
+  public TooManyRequestsException(String message, Duration retryAfter) {
+    super(message);
+    this.retryAfter = retryAfter;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
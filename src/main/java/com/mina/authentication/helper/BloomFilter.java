@@ -0,0 +1,69 @@
+package com.mina.authentication.helper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter of strings: {@link #mightContain(String)} never misses an added value and is wrong for other values
+ * with about the false positive rate it was sized for.
+ */
+public class BloomFilter {
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final AtomicLongArray words;
+  private final long bits;
+  private final int hashes;
+
+  public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+    long n = Math.max(1, expectedInsertions);
+    long optimalBits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    this.words = new AtomicLongArray(Math.toIntExact((Math.max(64, optimalBits) + 63) / 64));
+    this.bits = words.length() * 64L;
+    this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+  }
+
+  public void add(String value) {
+    long hash1 = hash(value);
+    long hash2 = mix(hash1);
+    for (int i = 0; i < hashes; i++) {
+      long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bits;
+      long mask = 1L << bit;
+      int word = (int) (bit >>> 6);
+      long current;
+      while (((current = words.get(word)) & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+        // another bit of the same word was set meanwhile
+      }
+    }
+  }
+
+  public boolean mightContain(String value) {
+    long hash1 = hash(value);
+    long hash2 = mix(hash1);
+    for (int i = 0; i < hashes; i++) {
+      long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bits;
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // FNV-1a over the UTF-8 bytes
+  private static long hash(String value) {
+    long hash = FNV_OFFSET_BASIS;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xff;
+      hash *= FNV_PRIME;
+    }
+    return mix(hash);
+  }
+
+  // SplitMix64 finalizer, spreads the bits and derives the second hash from the first
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
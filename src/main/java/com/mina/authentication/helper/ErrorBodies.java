@@ -0,0 +1,43 @@
+package com.mina.authentication.helper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mina.authentication.controller.dto.ApiErrorResponse;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serialized {@link ApiErrorResponse} bodies. Most rejections carry one of a few fixed messages, their bodies are serialized
+ * once and then written as they are. The cache admits by frequency, so messages that contain request data, like an email
+ * address, do not displace the fixed ones.
+ */
+@Component
+public class ErrorBodies {
+
+  private static final int MAXIMUM_SIZE = 256;
+
+  private final ObjectMapper objectMapper;
+  private final Cache<ApiErrorResponse, byte[]> bodies = Caffeine.newBuilder()
+      .maximumSize(MAXIMUM_SIZE)
+      .build();
+
+  public ErrorBodies(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * The UTF-8 JSON of the response. The returned array is shared and must not be modified.
+   */
+  public byte[] of(int errorCode, String description) {
+    return bodies.get(new ApiErrorResponse(errorCode, description), this::serialize);
+  }
+
+  private byte[] serialize(ApiErrorResponse response) {
+    try {
+      return objectMapper.writeValueAsBytes(response);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Could not serialize " + response, e); // two plain fields always serialize
+    }
+  }
+}
@@ -1,57 +1,238 @@
 package com.mina.authentication.helper;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.mina.authentication.config.AuthMetrics.Outcome;
+import com.mina.authentication.config.JwtProperties;
 import com.mina.authentication.exceptions.AccessDeniedException;
+import com.mina.authentication.exceptions.TokenExpiredException;
+import com.mina.authentication.jfr.TokenEvent;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.LocatorAdapter;
 import io.jsonwebtoken.security.SignatureException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.Date;
+import java.util.UUID;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
 
+/**
+ * Issues tokens signed with the active key and verifies tokens signed with any configured key, selected by the {@code kid} header.
+ */
+@Component
 public class JwtHelper {
 
-  private static final Key SECRET_KEY = Keys.secretKeyFor(SignatureAlgorithm.HS256);
-  private static final int MINUTES = 60;
+  // Request attribute under which JwtAuthFilter exposes the verified claims to the controllers
+  public static final String CLAIMS_ATTRIBUTE = "com.mina.authentication.helper.JwtHelper.CLAIMS";
+  // Fixed messages, so their error bodies are serialized once
+  private static final String EXPIRED = "Access denied: JWT has expired";
+  private static final Duration REJECTED_TOKENS_TTL = Duration.ofMinutes(10);
+  // Operations of the TokenEvents
+  private static final String SIGN = "sign";
+  private static final String VERIFY = "verify";
+  private static final String PARSE = "parse";
 
-  public static String generateToken(String email) {
+  private final JwtKeys keys;
+  private final Duration expiration;
+  private final JwtParser parser;
+
+  // Verified claims keyed by the SHA-256 digest of the token, so repeated tokens skip the signature check.
+  // Every entry expires together with its token.
+  private final Cache<ByteBuffer, Claims> verifiedTokens;
+  // Rejections of the tokens that failed verification, a replayed forged token costs a lookup instead of a signature check.
+  // The exceptions are stackless and immutable, so they are thrown again as they are.
+  private final Cache<ByteBuffer, AccessDeniedException> rejectedTokens;
+
+  public JwtHelper(JwtKeys keys, JwtProperties properties) {
+    this.keys = keys;
+    this.expiration = properties.expiration();
+    this.parser = Jwts.parser()
+        .keyLocator(new LocatorAdapter<>() {
+          @Override
+          protected Key locate(JwsHeader header) {
+            PublicKey key = keys.verificationKey(header.getKeyId());
+            if (key == null) {
+              throw new SignatureException("Unknown signing key: " + header.getKeyId());
+            }
+            return key;
+          }
+        })
+        .build();
+    this.verifiedTokens = Caffeine.newBuilder()
+        .maximumSize(properties.verifiedTokensSize())
+        .expireAfter(new Expiry<ByteBuffer, Claims>() {
+          @Override
+          public long expireAfterCreate(ByteBuffer digest, Claims claims, long currentTime) {
+            return remainingLifetime(claims).toNanos();
+          }
+
+          @Override
+          public long expireAfterUpdate(ByteBuffer digest, Claims claims, long currentTime, long currentDuration) {
+            return remainingLifetime(claims).toNanos();
+          }
+
+          @Override
+          public long expireAfterRead(ByteBuffer digest, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .build();
+    this.rejectedTokens = Caffeine.newBuilder()
+        .maximumSize(properties.verifiedTokensSize())
+        .expireAfterWrite(REJECTED_TOKENS_TTL)
+        .build();
+  }
+
+  public String generateToken(String email) {
+    TokenEvent event = new TokenEvent();
+    event.begin();
     var now = Instant.now();
-    return Jwts.builder()
+    String token = Jwts.builder()
+        .header().keyId(keys.activeKeyId()).and()
+        .id(UUID.randomUUID().toString()) // lets the token be revoked before it expires
         .subject(email)
         .issuedAt(Date.from(now))
-        .expiration(Date.from(now.plus(MINUTES, ChronoUnit.MINUTES)))
-        .signWith(SignatureAlgorithm.HS256, SECRET_KEY)
+        .expiration(Date.from(now.plus(expiration)))
+        .signWith(keys.signingKey()) // ES256 or EdDSA, depending on the key
         .compact();
+    commit(event, SIGN, Outcome.SUCCESS);
+    return token;
+  }
+
+  /**
+   * Parses and verifies the token once and returns its claims. Tokens verified before are served from the cache until they expire,
+   * tokens rejected before are rejected again without parsing.
+   */
+  public Claims verify(String token) {
+    TokenEvent event = new TokenEvent();
+    event.begin();
+    Outcome outcome = Outcome.SUCCESS;
+    try {
+      ByteBuffer digest = digest(token);
+      Claims claims = verifiedTokens.getIfPresent(digest);
+      if (claims != null) {
+        event.cached = true;
+        if (isTokenExpired(claims)) {
+          throw new TokenExpiredException(EXPIRED); // known to be authentic, no need to parse it again to find out
+        }
+        return claims;
+      }
+
+      AccessDeniedException rejection = rejectedTokens.getIfPresent(digest);
+      if (rejection != null) {
+        event.cached = true;
+        throw rejection;
+      }
+
+      try {
+        claims = getTokenBody(token);
+      } catch (AccessDeniedException e) {
+        rejectedTokens.put(digest, e);
+        throw e;
+      }
+      verifiedTokens.put(digest, claims);
+      return claims;
+    } catch (RuntimeException e) {
+      outcome = Outcome.of(e);
+      throw e;
+    } finally {
+      commit(event, VERIFY, outcome);
+    }
+  }
+
+  /**
+   * Whether the token has the shape of a signed JWT: three non-empty base64url parts. Cheap enough to run before any parsing.
+   */
+  public static boolean isWellFormed(String token) {
+    int dots = 0;
+    int partLength = 0;
+    for (int i = 0; i < token.length(); i++) {
+      char c = token.charAt(i);
+      if (c == '.') {
+        if (partLength == 0 || ++dots > 2) {
+          return false;
+        }
+        partLength = 0;
+      } else if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_') {
+        partLength++;
+      } else {
+        return false;
+      }
+    }
+    return dots == 2 && partLength > 0;
+  }
+
+  public String extractUsername(String token) {
+    return verify(token).getSubject();
   }
 
-  public static String extractUsername(String token) {
-    return getTokenBody(token).getSubject();
+  public Boolean validateToken(String token, UserDetails userDetails) {
+    return validateToken(verify(token), userDetails);
   }
 
-  public static Boolean validateToken(String token, UserDetails userDetails) {
-    final String username = extractUsername(token);
-    return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+  public Boolean validateToken(Claims claims, UserDetails userDetails) {
+    return claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims);
   }
 
-  private static Claims getTokenBody(String token) {
+  private Claims getTokenBody(String token) {
+    TokenEvent event = new TokenEvent();
+    event.begin();
+    Outcome outcome = Outcome.ERROR;
     try {
-      return Jwts
-          .parser()
-          .setSigningKey(SECRET_KEY)
-          .build()
-          .parseSignedClaims(token)
-          .getPayload();
-    } catch (SignatureException | ExpiredJwtException e) { // Invalid signature or expired token
-      throw new AccessDeniedException("Access denied: " + e.getMessage());
+      Claims claims = parser.parseSignedClaims(token).getPayload();
+      outcome = Outcome.SUCCESS;
+      return claims;
+    } catch (ExpiredJwtException e) {
+      outcome = Outcome.EXPIRED;
+      throw new TokenExpiredException(EXPIRED);
+    } catch (SignatureException e) { // Invalid signature or unknown key, the JCA messages can contain the key material
+      outcome = Outcome.BAD_SIGNATURE;
+      throw new AccessDeniedException("Access denied: JWT signature could not be verified");
+    } catch (JwtException e) { // Malformed or unsupported, the messages echo parts of the token
+      outcome = Outcome.BAD_SIGNATURE;
+      throw new AccessDeniedException("Access denied: invalid JWT");
+    } finally {
+      commit(event, PARSE, outcome);
+    }
+  }
+
+  // The fields are only set for events that are recorded, below the threshold or without a recording an event costs nothing more
+  private static void commit(TokenEvent event, String operation, Outcome outcome) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.operation = operation;
+      event.outcome = outcome.tag();
+      event.commit();
     }
   }
 
-  private static boolean isTokenExpired(String token) {
-    Claims claims = getTokenBody(token);
+  private static boolean isTokenExpired(Claims claims) {
     return claims.getExpiration().before(new Date());
   }
-}
\ No newline at end of file
+
+  private static Duration remainingLifetime(Claims claims) {
+    Duration remaining = Duration.between(Instant.now(), claims.getExpiration().toInstant());
+    return remaining.isNegative() ? Duration.ZERO : remaining;
+  }
+
+  private static ByteBuffer digest(String token) {
+    try {
+      return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e); // every JVM is required to support SHA-256
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package com.mina.authentication.helper;
+
+import com.mina.authentication.config.JwtProperties;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.KeySpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import org.springframework.core.io.Resource;
+
+/**
+ * The key ring tokens are signed and verified with, keys are identified by their {@code kid}.
+ */
+public class JwtKeys {
+
+  private static final List<String> ALGORITHMS = List.of("EC", "Ed25519");
+  private static final ECParameterSpec P256 = p256();
+
+  private final String activeKeyId;
+  private final PrivateKey signingKey;
+  private final Map<String, PublicKey> verificationKeys;
+
+  public JwtKeys(String activeKeyId, PrivateKey signingKey, Map<String, PublicKey> verificationKeys) {
+    if (!verificationKeys.containsKey(activeKeyId)) {
+      throw new IllegalArgumentException("No public key configured for the active key " + activeKeyId);
+    }
+    this.activeKeyId = activeKeyId;
+    this.signingKey = signingKey;
+    this.verificationKeys = Map.copyOf(verificationKeys);
+  }
+
+  public static JwtKeys load(JwtProperties properties) {
+    Map<String, PublicKey> verificationKeys = new LinkedHashMap<>();
+    PrivateKey signingKey = null;
+    for (JwtProperties.Key key : properties.keys()) {
+      verificationKeys.put(key.id(), readPem(key.publicKey(), X509EncodedKeySpec::new, JwtKeys::publicKey));
+      if (key.id().equals(properties.activeKeyId())) {
+        if (key.privateKey() == null) {
+          throw new IllegalArgumentException("No private key configured for the active key " + key.id());
+        }
+        signingKey = readPem(key.privateKey(), PKCS8EncodedKeySpec::new, JwtKeys::privateKey);
+      }
+    }
+    if (signingKey == null) {
+      throw new IllegalArgumentException("The active key " + properties.activeKeyId() + " is not configured");
+    }
+    return new JwtKeys(properties.activeKeyId(), signingKey, verificationKeys);
+  }
+
+  /**
+   * A random ES256 key pair, only valid in this JVM. Used when no keys are configured, e.g. in development and tests.
+   */
+  public static JwtKeys ephemeral() {
+    try {
+      KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+      generator.initialize(new ECGenParameterSpec("secp256r1"));
+      KeyPair keyPair = generator.generateKeyPair();
+      String keyId = "ephemeral-" + UUID.randomUUID();
+      return new JwtKeys(keyId, keyPair.getPrivate(), Map.of(keyId, keyPair.getPublic()));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Could not generate a signing key", e);
+    }
+  }
+
+  public String activeKeyId() {
+    return activeKeyId;
+  }
+
+  public PrivateKey signingKey() {
+    return signingKey;
+  }
+
+  /**
+   * @return the public key with the given id, or null if there is none
+   */
+  public PublicKey verificationKey(String keyId) {
+    return keyId == null ? null : verificationKeys.get(keyId);
+  }
+
+  public Map<String, PublicKey> verificationKeys() {
+    return verificationKeys;
+  }
+
+  private static <K extends Key> K readPem(Resource resource, Function<byte[], KeySpec> spec, KeyParser<K> parser) {
+    try {
+      String pem = resource.getContentAsString(StandardCharsets.US_ASCII);
+      String base64 = pem.replaceAll("-----(BEGIN|END) [A-Z ]+-----", "").replaceAll("\\s", "");
+      KeySpec keySpec = spec.apply(Base64.getDecoder().decode(base64));
+      for (String algorithm : ALGORITHMS) {
+        K key;
+        try {
+          key = parser.parse(KeyFactory.getInstance(algorithm), keySpec);
+        } catch (GeneralSecurityException e) {
+          continue; // not a key of this algorithm, try the next one
+        }
+//        jjwt signs with ES384 or ES512 on the other curves, while the JWKS publishes every EC key as ES256
+        if (key instanceof ECKey ecKey && !isP256(ecKey)) {
+          throw new IllegalArgumentException("Only EC keys on the P-256 curve are supported: " + resource.getDescription());
+        }
+        return key;
+      }
+      throw new IllegalArgumentException("Not an EC or Ed25519 key: " + resource.getDescription());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read " + resource.getDescription(), e);
+    }
+  }
+
+  private static boolean isP256(ECKey key) {
+    ECParameterSpec params = key.getParams();
+    return params.getCurve().equals(P256.getCurve()) && params.getGenerator().equals(P256.getGenerator())
+        && params.getOrder().equals(P256.getOrder()) && params.getCofactor() == P256.getCofactor();
+  }
+
+  private static ECParameterSpec p256() {
+    try {
+      AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+      parameters.init(new ECGenParameterSpec("secp256r1"));
+      return parameters.getParameterSpec(ECParameterSpec.class);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("The P-256 curve is not available", e);
+    }
+  }
+
+  private static PublicKey publicKey(KeyFactory factory, KeySpec keySpec) throws GeneralSecurityException {
+    return factory.generatePublic(keySpec);
+  }
+
+  private static PrivateKey privateKey(KeyFactory factory, KeySpec keySpec) throws GeneralSecurityException {
+    return factory.generatePrivate(keySpec);
+  }
+
+  @FunctionalInterface
+  private interface KeyParser<K extends Key> {
+
+    K parse(KeyFactory factory, KeySpec keySpec) throws GeneralSecurityException;
+  }
+}
@@ -0,0 +1,28 @@
+package com.mina.authentication.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A request with a bearer token passing the {@link com.mina.authentication.config.JwtAuthFilter}, up to the start of the rest
+ * of the filter chain.
+ */
+@Name("com.mina.authentication.AuthFilter")
+@Label("Token Authentication")
+@Category({"Authentication", "Token"})
+@Description("Authentication of requests by their bearer token")
+@StackTrace(false)
+@Threshold("5 ms")
+public class AuthFilterEvent extends jdk.jfr.Event {
+
+  @Label("Path")
+  public String path;
+
+  @Label("Outcome")
+  @Description("authenticated, malformed, expired, denied or unavailable")
+  public String outcome;
+}
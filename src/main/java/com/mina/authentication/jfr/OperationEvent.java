@@ -0,0 +1,27 @@
+package com.mina.authentication.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * An authentication operation as timed by {@link com.mina.authentication.config.AuthMetrics}, the events of the same thread
+ * within its duration belong to it.
+ */
+@Name("com.mina.authentication.Operation")
+@Label("Authentication Operation")
+@Category("Authentication")
+@Description("Signups, logins, refreshes, logouts and token validations with their outcome")
+@StackTrace(false)
+@Threshold("20 ms")
+public class OperationEvent extends jdk.jfr.Event {
+
+  @Label("Operation")
+  public String operation;
+
+  @Label("Outcome")
+  public String outcome;
+}
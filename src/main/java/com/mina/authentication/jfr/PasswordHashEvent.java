@@ -0,0 +1,41 @@
+package com.mina.authentication.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * A password hashed or matched by the {@link com.mina.authentication.config.BoundedPasswordEncoder}. The event is committed
+ * on the hashing thread, the request it belongs to is the request thread.
+ */
+@Name("com.mina.authentication.PasswordHash")
+@Label("Password Hash")
+@Category({"Authentication", "Password"})
+@Description("BCrypt encoding and matching of passwords")
+@StackTrace(false)
+@Threshold("0 ms")
+public class PasswordHashEvent extends jdk.jfr.Event {
+
+  @Label("Operation")
+  @Description("encode or match")
+  public String operation;
+
+  @Label("Cost")
+  @Description("BCrypt cost factor, log2 of the rounds")
+  public int cost;
+
+  @Label("Matched")
+  public boolean matched;
+
+  @Label("Queue Wait")
+  @Description("Time waited for a hashing thread")
+  @Timespan(Timespan.NANOSECONDS)
+  public long queueWait;
+
+  @Label("Request Thread")
+  public Thread requestThread;
+}
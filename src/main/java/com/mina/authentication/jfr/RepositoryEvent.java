@@ -0,0 +1,47 @@
+package com.mina.authentication.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A statement of the user or login attempt repository, including the wait for its bulkhead and connection.
+ */
+@Name("com.mina.authentication.Repository")
+@Label("Repository Statement")
+@Category({"Authentication", "Database"})
+@Description("Statements of the user and login attempt repositories")
+@StackTrace(false)
+@Threshold("10 ms")
+public class RepositoryEvent extends jdk.jfr.Event {
+
+  @Label("Repository")
+  public String repository;
+
+  @Label("Method")
+  public String method;
+
+  @Label("Statement")
+  public String statement;
+
+  @Label("Rows")
+  @Description("Rows written or read, -1 if the statement failed")
+  public long rows;
+
+  /**
+   * Commits the event if it is recorded, the fields are only set then.
+   */
+  public void complete(String repository, String method, String statement, long rows) {
+    end();
+    if (shouldCommit()) {
+      this.repository = repository;
+      this.method = method;
+      this.statement = statement;
+      this.rows = rows;
+      commit();
+    }
+  }
+}
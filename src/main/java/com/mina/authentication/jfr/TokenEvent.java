@@ -0,0 +1,32 @@
+package com.mina.authentication.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A token signed, verified or parsed by the {@link com.mina.authentication.helper.JwtHelper}. A verify served from the cache
+ * takes microseconds and is below the default threshold, a parse is the jjwt work behind a cache miss.
+ */
+@Name("com.mina.authentication.Token")
+@Label("Token")
+@Category({"Authentication", "Token"})
+@Description("Signing, verification and parsing of access tokens")
+@StackTrace(false)
+@Threshold("1 ms")
+public class TokenEvent extends jdk.jfr.Event {
+
+  @Label("Operation")
+  @Description("sign, verify or parse")
+  public String operation;
+
+  @Label("Cached")
+  @Description("Whether the verification was answered by the cache of verified or rejected tokens")
+  public boolean cached;
+
+  @Label("Outcome")
+  public String outcome;
+}
@@ -0,0 +1,43 @@
+package com.mina.authentication.repository;
+
+import java.util.Optional;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class ImportCheckpointRepository {
+
+  private static final String FIND = "SELECT position FROM authentication.user_import WHERE file = :file";
+  private static final String SAVE = "INSERT INTO authentication.user_import (file, position) VALUES(:file, :position) "
+      + "ON CONFLICT (file) DO UPDATE SET position = EXCLUDED.position, updated_at = now()";
+  private static final String DELETE = "DELETE FROM authentication.user_import WHERE file = :file";
+
+  private final JdbcClient jdbcClient;
+
+  public ImportCheckpointRepository(JdbcClient jdbcClient) {
+    this.jdbcClient = jdbcClient;
+  }
+
+  public Optional<Long> find(String file) {
+    return jdbcClient.sql(FIND)
+        .param("file", file)
+        .query(Long.class)
+        .optional();
+  }
+
+  /**
+   * Must run in the transaction that copies the records, so they are imported exactly once.
+   */
+  public void save(String file, long position) {
+    jdbcClient.sql(SAVE)
+        .param("file", file)
+        .param("position", position)
+        .update();
+  }
+
+  public void delete(String file) {
+    jdbcClient.sql(DELETE)
+        .param("file", file)
+        .update();
+  }
+}
@@ -0,0 +1,109 @@
+package com.mina.authentication.repository;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+/**
+ * DDL for the daily partitions of authentication.login_attempt, see 3_partitions.xml.
+ */
+@Repository
+public class LoginAttemptPartitionRepository {
+
+  private static final DateTimeFormatter SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+  private static final Pattern PARTITION_NAME = Pattern.compile("login_attempt_p(\\d{8})");
+  private static final long LOCK_KEY = 0x6c6f67696e5f7061L; // arbitrary, only has to be unique per database
+
+  private static final String TRY_LOCK = "SELECT pg_try_advisory_xact_lock(:key)";
+  private static final String FIND_PARTITIONS = """
+      SELECT c.relname FROM pg_inherits i
+      JOIN pg_class c ON c.oid = i.inhrelid
+      WHERE i.inhparent = 'authentication.login_attempt'::regclass""";
+  private static final String CREATE = "CREATE TABLE authentication.%s (LIKE authentication.login_attempt INCLUDING DEFAULTS)";
+  private static final String LOCK_DEFAULT = "LOCK TABLE authentication.login_attempt_default IN SHARE ROW EXCLUSIVE MODE";
+  private static final String MOVE_FROM_DEFAULT = """
+      WITH moved AS (
+        DELETE FROM authentication.login_attempt_default WHERE created_at >= :from AND created_at < :to RETURNING *
+      )
+      INSERT INTO authentication.%s (id, email, success, created_at) SELECT id, email, success, created_at FROM moved""";
+  private static final String ATTACH = "ALTER TABLE authentication.login_attempt ATTACH PARTITION authentication.%s FOR VALUES FROM ('%s') TO ('%s')";
+  private static final String DROP = "DROP TABLE IF EXISTS authentication.%s";
+  private static final String DETACH = "ALTER TABLE authentication.login_attempt DETACH PARTITION authentication.%s";
+
+  private final JdbcClient jdbcClient;
+
+  public LoginAttemptPartitionRepository(JdbcClient jdbcClient) {
+    this.jdbcClient = jdbcClient;
+  }
+
+  /**
+   * Serializes the maintenance of all nodes, the lock is released with the current transaction.
+   */
+  public boolean tryLock() {
+    return jdbcClient.sql(TRY_LOCK)
+        .param("key", LOCK_KEY)
+        .query(Boolean.class)
+        .single();
+  }
+
+  /**
+   * Days of the existing daily partitions, the default partition is not included.
+   */
+  public List<LocalDate> findPartitions() {
+    return jdbcClient.sql(FIND_PARTITIONS)
+        .query(String.class)
+        .list()
+        .stream()
+        .map(LoginAttemptPartitionRepository::parseDay)
+        .flatMap(Optional::stream)
+        .sorted()
+        .toList();
+  }
+
+  /**
+   * Creates the partition of a day, moving the rows that the default partition already holds for it: attaching a range that
+   * the default partition has rows of would fail. Must run in a transaction, so that no row lands in the default partition
+   * between the move and the attach.
+   *
+   * @return the number of rows moved out of the default partition
+   */
+  public int create(LocalDate day) {
+    String name = name(day);
+    OffsetDateTime from = day.atStartOfDay(ZoneOffset.UTC).toOffsetDateTime();
+    OffsetDateTime to = day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toOffsetDateTime();
+    jdbcClient.sql(CREATE.formatted(name)).update();
+//    Inserts into the default partition wait until the end of the transaction, so the attach finds none of the day's rows in it
+    jdbcClient.sql(LOCK_DEFAULT).update();
+    int moved = jdbcClient.sql(MOVE_FROM_DEFAULT.formatted(name))
+        .param("from", from)
+        .param("to", to)
+        .update();
+    jdbcClient.sql(ATTACH.formatted(name, from, to)).update();
+    return moved;
+  }
+
+  public void drop(LocalDate day) {
+    jdbcClient.sql(DROP.formatted(name(day))).update();
+  }
+
+  public void detach(LocalDate day) {
+    jdbcClient.sql(DETACH.formatted(name(day))).update();
+  }
+
+  // Identifiers cannot be bound as parameters, they are only ever built from a date
+  private static String name(LocalDate day) {
+    return "login_attempt_p" + SUFFIX.format(day);
+  }
+
+  private static Optional<LocalDate> parseDay(String tableName) {
+    Matcher matcher = PARTITION_NAME.matcher(tableName);
+    return matcher.matches() ? Optional.of(LocalDate.parse(matcher.group(1), SUFFIX)) : Optional.empty();
+  }
+}
@@ -1,7 +1,13 @@
 package com.mina.authentication.repository;
 
 import com.mina.authentication.domain.LoginAttempt;
+import com.mina.authentication.domain.LoginAttemptCursor;
+import com.mina.authentication.domain.LoginAttemptFilter;
+import com.mina.authentication.jfr.RepositoryEvent;
 import java.util.List;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SimplePropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.Assert;
@@ -9,31 +15,112 @@ import org.springframework.util.Assert;
 @Repository
 public class LoginAttemptRepository {
 
-  private static final int RECENT_COUNT = 10; // can be in the config
+  public static final int RECENT_COUNT = 10; // default page size, can be in the config
+  private static final String NAME = "login_attempt";
   private static final String INSERT = "INSERT INTO authentication.login_attempt (email, success, created_at) VALUES(:email, :success, :createdAt)";
-  private static final String FIND_RECENT = "SELECT * FROM authentication.login_attempt WHERE email = :email ORDER BY created_at DESC LIMIT :recentCount";
+  private static final String FIND_PAGE = "SELECT * FROM authentication.login_attempt WHERE email = :email";
+  private static final String SUCCESS = " AND success = :success";
+  private static final String FROM = " AND created_at >= :from";
+  private static final String TO = " AND created_at < :to";
+  // The redundant bound on created_at lets Postgres prune the newer partitions, the row comparison alone does not
+  private static final String AFTER_ROW = " AND (created_at, id) < (:afterCreatedAt, :afterId) AND created_at <= :afterCreatedAt";
+  private static final String ORDER_AND_LIMIT = " ORDER BY created_at DESC, id DESC LIMIT :limit";
 
   private final JdbcClient jdbcClient;
+  private final NamedParameterJdbcTemplate jdbcTemplate;
 
-  public LoginAttemptRepository(JdbcClient jdbcClient) {
+  public LoginAttemptRepository(JdbcClient jdbcClient, NamedParameterJdbcTemplate jdbcTemplate) {
     this.jdbcClient = jdbcClient;
+    this.jdbcTemplate = jdbcTemplate;
   }
 
   public void add(LoginAttempt loginAttempt) {
-    long affected = jdbcClient.sql(INSERT)
-        .param("email", loginAttempt.email())
-        .param("success", loginAttempt.success())
-        .param("createdAt", loginAttempt.createdAt())
-        .update();
+    RepositoryEvent event = new RepositoryEvent();
+    event.begin();
+    long affected = -1;
+    try {
+      affected = jdbcClient.sql(INSERT)
+          .param("email", loginAttempt.email())
+          .param("success", loginAttempt.success())
+          .param("createdAt", loginAttempt.createdAt())
+          .update();
+    } finally {
+      event.complete(NAME, "add", INSERT, affected);
+    }
 
     Assert.isTrue(affected == 1, "Could not add login attempt.");
   }
 
-  public List<LoginAttempt> findRecent(String email) {
-    return jdbcClient.sql(FIND_RECENT)
+  // Sent as a single JDBC batch, the driver rewrites it into multi-row inserts (reWriteBatchedInserts)
+  public void addAll(List<LoginAttempt> loginAttempts) {
+    SqlParameterSource[] batch = loginAttempts.stream()
+        .map(SimplePropertySqlParameterSource::new)
+        .toArray(SqlParameterSource[]::new);
+    RepositoryEvent event = new RepositoryEvent();
+    event.begin();
+    long rows = -1;
+    try {
+      jdbcTemplate.batchUpdate(INSERT, batch);
+      rows = batch.length; // the rewritten inserts do not report the rows of each statement
+    } finally {
+      event.complete(NAME, "addAll", INSERT, rows);
+    }
+  }
+
+  /**
+   * Newest first, starting after the cursor. Only the conditions that are set become part of the query, so it is always a range
+   * scan on the (email, [success,] created_at DESC, id DESC) index and a page costs the same however deep it is.
+   *
+   * @param after null for the first page
+   */
+  public List<LoginAttempt> findPage(String email, LoginAttemptFilter filter, LoginAttemptCursor after, int limit) {
+    String sql = pageQuery(filter, after);
+    JdbcClient.StatementSpec statement = jdbcClient.sql(sql)
         .param("email", email)
-        .param("recentCount", RECENT_COUNT)
-        .query(LoginAttempt.class)
-        .list();
+        .param("limit", limit);
+    if (filter.success() != null) {
+      statement = statement.param("success", filter.success());
+    }
+    if (filter.from() != null) {
+      statement = statement.param("from", filter.from());
+    }
+    if (filter.to() != null) {
+      statement = statement.param("to", filter.to());
+    }
+    if (after != null) {
+      statement = statement.param("afterCreatedAt", after.createdAt()).param("afterId", after.id());
+    }
+    JdbcClient.StatementSpec query = statement;
+    RepositoryEvent event = new RepositoryEvent();
+    event.begin();
+    long rows = -1;
+    try {
+      List<LoginAttempt> page = query.query(LoginAttempt.class).list();
+      rows = page.size();
+      return page;
+    } finally {
+      event.complete(NAME, "findPage", sql, rows);
+    }
+  }
+
+  /**
+   * The query of {@link #findPage}, with the named parameters of the conditions that are set. Shared with the reactive variant.
+   */
+  public static String pageQuery(LoginAttemptFilter filter, LoginAttemptCursor after) {
+    StringBuilder sql = new StringBuilder(FIND_PAGE);
+    if (filter.success() != null) {
+      sql.append(SUCCESS);
+    }
+    if (filter.from() != null) {
+      sql.append(FROM);
+    }
+    if (filter.to() != null) {
+      sql.append(TO);
+    }
+    if (after != null) {
+      sql.append(AFTER_ROW);
+    }
+    sql.append(ORDER_AND_LIMIT);
+    return sql.toString();
   }
 }
@@ -0,0 +1,88 @@
+package com.mina.authentication.repository;
+
+import com.mina.authentication.domain.LoginAttempt;
+import com.mina.authentication.domain.LoginStats;
+import com.mina.authentication.domain.LoginStats.Granularity;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class LoginStatsRepository {
+
+  private static final String INCREMENT = "INSERT INTO authentication.%s AS s (email, bucket, successes, failures) VALUES(:email, :bucket, :successes, :failures) ON CONFLICT (email, bucket) DO UPDATE SET successes = s.successes + EXCLUDED.successes, failures = s.failures + EXCLUDED.failures";
+  private static final String FIND = "SELECT bucket, successes, failures FROM authentication.%s WHERE email = :email AND bucket >= :from AND bucket < :to ORDER BY bucket";
+  private static final String DELETE_BEFORE = "DELETE FROM authentication.%s WHERE bucket < :before";
+
+  // Rows are upserted in key order, so concurrent flushes lock them in the same order and cannot deadlock
+  private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::email).thenComparing(Key::bucket);
+
+  private record Key(String email, LocalDateTime bucket) {
+
+  }
+
+  private final JdbcClient jdbcClient;
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  public LoginStatsRepository(JdbcClient jdbcClient, NamedParameterJdbcTemplate jdbcTemplate) {
+    this.jdbcClient = jdbcClient;
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Adds the attempts to the minute and day rollups of their users and of all users, with one batch per rollup.
+   */
+  public void increment(List<LoginAttempt> loginAttempts) {
+    for (Granularity granularity : Granularity.values()) {
+      Map<Key, long[]> counts = new TreeMap<>(KEY_ORDER);
+      for (LoginAttempt loginAttempt : loginAttempts) {
+        LocalDateTime bucket = granularity.truncate(loginAttempt.createdAt());
+        int outcome = loginAttempt.success() ? 0 : 1;
+        counts.computeIfAbsent(new Key(loginAttempt.email(), bucket), key -> new long[2])[outcome]++;
+        counts.computeIfAbsent(new Key(LoginStats.ALL_USERS, bucket), key -> new long[2])[outcome]++;
+      }
+
+      SqlParameterSource[] batch = counts.entrySet().stream()
+          .map(entry -> new MapSqlParameterSource()
+              .addValue("email", entry.getKey().email())
+              .addValue("bucket", entry.getKey().bucket())
+              .addValue("successes", entry.getValue()[0])
+              .addValue("failures", entry.getValue()[1]))
+          .toArray(SqlParameterSource[]::new);
+      jdbcTemplate.batchUpdate(INCREMENT.formatted(table(granularity)), batch);
+    }
+  }
+
+  /**
+   * @param email the user, or {@link LoginStats#ALL_USERS}
+   * @return the buckets in [from, to) with at least one attempt, oldest first
+   */
+  public List<LoginStats> find(String email, Granularity granularity, LocalDateTime from, LocalDateTime to) {
+    return jdbcClient.sql(FIND.formatted(table(granularity)))
+        .param("email", email)
+        .param("from", from)
+        .param("to", to)
+        .query(LoginStats.class)
+        .list();
+  }
+
+  public int deleteBefore(Granularity granularity, LocalDateTime before) {
+    return jdbcClient.sql(DELETE_BEFORE.formatted(table(granularity)))
+        .param("before", before)
+        .update();
+  }
+
+  private static String table(Granularity granularity) {
+    return switch (granularity) {
+      case MINUTE -> "login_stats_minute";
+      case DAY -> "login_stats_day";
+    };
+  }
+}
@@ -0,0 +1,65 @@
+package com.mina.authentication.repository;
+
+import com.mina.authentication.domain.RefreshToken;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.Assert;
+
+@Repository
+public class RefreshTokenRepository {
+
+  private static final String INSERT = "INSERT INTO authentication.refresh_token (token_hash, family_id, email, expires_at) VALUES(:tokenHash, :familyId, :email, now() + make_interval(secs => :ttlSeconds))";
+  private static final String USE = "UPDATE authentication.refresh_token SET used_at = now() WHERE token_hash = :tokenHash AND used_at IS NULL AND NOT revoked AND expires_at > now() RETURNING family_id, email, used_at";
+  private static final String FIND_BY_HASH = "SELECT family_id, email, used_at FROM authentication.refresh_token WHERE token_hash = :tokenHash";
+  private static final String REVOKE_FAMILY = "UPDATE authentication.refresh_token SET revoked = true WHERE family_id = :familyId AND NOT revoked";
+  private static final String DELETE_EXPIRED = "DELETE FROM authentication.refresh_token WHERE expires_at < now()";
+
+  private final JdbcClient jdbcClient;
+
+  public RefreshTokenRepository(JdbcClient jdbcClient) {
+    this.jdbcClient = jdbcClient;
+  }
+
+  public void add(byte[] tokenHash, UUID familyId, String email, Duration ttl) {
+    long affected = jdbcClient.sql(INSERT)
+        .param("tokenHash", tokenHash)
+        .param("familyId", familyId)
+        .param("email", email)
+        .param("ttlSeconds", ttl.toSeconds())
+        .update();
+
+    Assert.isTrue(affected == 1, "Could not add refresh token.");
+  }
+
+  /**
+   * Marks the token as used in a single round trip, if it is neither used, revoked nor expired.
+   *
+   * @return the used token, or empty if it cannot be used
+   */
+  public Optional<RefreshToken> use(byte[] tokenHash) {
+    return jdbcClient.sql(USE)
+        .param("tokenHash", tokenHash)
+        .query(RefreshToken.class)
+        .optional();
+  }
+
+  public Optional<RefreshToken> findByHash(byte[] tokenHash) {
+    return jdbcClient.sql(FIND_BY_HASH)
+        .param("tokenHash", tokenHash)
+        .query(RefreshToken.class)
+        .optional();
+  }
+
+  public int revokeFamily(UUID familyId) {
+    return jdbcClient.sql(REVOKE_FAMILY)
+        .param("familyId", familyId)
+        .update();
+  }
+
+  public int deleteExpired() {
+    return jdbcClient.sql(DELETE_EXPIRED).update();
+  }
+}
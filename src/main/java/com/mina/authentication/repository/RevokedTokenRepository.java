@@ -0,0 +1,65 @@
+package com.mina.authentication.repository;
+
+import com.mina.authentication.domain.InvalidationEvent;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class RevokedTokenRepository {
+
+  // Published so the other nodes add the token to their filters at once instead of at their next refresh
+  private static final String INSERT = "WITH inserted AS (INSERT INTO authentication.revoked_token (jti, email, expires_at) VALUES(:jti, :email, :expiresAt) ON CONFLICT (jti) DO NOTHING RETURNING jti) "
+      + "SELECT inserted.jti FROM inserted, " + UserRepository.notify(InvalidationEvent.Type.REVOKED_TOKEN, "inserted.jti");
+  private static final String EXISTS = "SELECT EXISTS (SELECT 1 FROM authentication.revoked_token WHERE jti = :jti)";
+  private static final String FIND_ACTIVE = "SELECT jti FROM authentication.revoked_token WHERE expires_at > now()";
+  private static final String FIND_REVOKED_WITHIN = "SELECT jti FROM authentication.revoked_token WHERE revoked_at > now() - make_interval(secs => :seconds)";
+  private static final String DELETE_EXPIRED = "DELETE FROM authentication.revoked_token WHERE expires_at < now()";
+
+  private final JdbcClient jdbcClient;
+
+  public RevokedTokenRepository(JdbcClient jdbcClient) {
+    this.jdbcClient = jdbcClient;
+  }
+
+  public void add(String jti, String email, Instant expiresAt) {
+    jdbcClient.sql(INSERT)
+        .param("jti", jti)
+        .param("email", email)
+        .param("expiresAt", OffsetDateTime.ofInstant(expiresAt, ZoneOffset.UTC))
+        .query(String.class)
+        .list();
+  }
+
+  public boolean exists(String jti) {
+    return jdbcClient.sql(EXISTS)
+        .param("jti", jti)
+        .query(Boolean.class)
+        .single();
+  }
+
+  // Bounded by the revocations within one token lifetime
+  public List<String> findActive() {
+    return jdbcClient.sql(FIND_ACTIVE)
+        .query(String.class)
+        .list();
+  }
+
+  /**
+   * The tokens revoked within the given time, by the clock of the database so the clocks of the nodes do not matter.
+   */
+  public List<String> findRevokedWithin(Duration duration) {
+    return jdbcClient.sql(FIND_REVOKED_WITHIN)
+        .param("seconds", duration.toMillis() / 1000.0)
+        .query(String.class)
+        .list();
+  }
+
+  public int deleteExpired() {
+    return jdbcClient.sql(DELETE_EXPIRED).update();
+  }
+}
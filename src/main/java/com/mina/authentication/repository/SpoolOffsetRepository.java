@@ -0,0 +1,39 @@
+package com.mina.authentication.repository;
+
+import com.mina.authentication.service.LoginAttemptSpool.Offset;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class SpoolOffsetRepository {
+
+  private static final String FIND = "SELECT segment, position FROM authentication.login_attempt_spool WHERE spool_id = :spoolId";
+  private static final String SAVE = "INSERT INTO authentication.login_attempt_spool (spool_id, segment, position) VALUES(:spoolId, :segment, :position) "
+      + "ON CONFLICT (spool_id) DO UPDATE SET segment = EXCLUDED.segment, position = EXCLUDED.position, updated_at = now()";
+
+  private final JdbcClient jdbcClient;
+
+  public SpoolOffsetRepository(JdbcClient jdbcClient) {
+    this.jdbcClient = jdbcClient;
+  }
+
+  public Optional<Offset> find(UUID spoolId) {
+    return jdbcClient.sql(FIND)
+        .param("spoolId", spoolId)
+        .query(Offset.class)
+        .optional();
+  }
+
+  /**
+   * Must run in the transaction that writes the replayed attempts, so they are replayed exactly once.
+   */
+  public void save(UUID spoolId, Offset offset) {
+    jdbcClient.sql(SAVE)
+        .param("spoolId", spoolId)
+        .param("segment", offset.segment())
+        .param("position", offset.position())
+        .update();
+  }
+}
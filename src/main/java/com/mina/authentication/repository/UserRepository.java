@@ -1,37 +1,155 @@
 package com.mina.authentication.repository;
 
+import com.mina.authentication.domain.InvalidationEvent;
 import com.mina.authentication.domain.User;
+import com.mina.authentication.jfr.RepositoryEvent;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Repository;
-import org.springframework.util.Assert;
 
 @Repository
 public class UserRepository {
 
-  private static final String INSERT = "INSERT INTO authentication.user (name, email, password) VALUES(:name, :email, :password)";
+  private static final String NAME = "user";
+  // Every added user is published, other nodes may have cached that it does not exist
+  private static final String INSERT = "WITH inserted AS (INSERT INTO authentication.user (name, email, password) VALUES(:name, :email, :password) ON CONFLICT (email) DO NOTHING RETURNING email) "
+      + "SELECT inserted.email FROM inserted, " + notify(InvalidationEvent.Type.USER, "inserted.email");
   private static final String FIND_BY_EMAIL = "SELECT * FROM authentication.user WHERE email = :email";
+  // Replaces only the hash that was verified, so a rehash cannot overwrite a password changed in the meantime
+  private static final String UPDATE_PASSWORD = "WITH updated AS (UPDATE authentication.user SET password = :password WHERE email = :email AND password = :previousPassword RETURNING email) "
+      + "SELECT updated.email FROM updated, " + notify(InvalidationEvent.Type.USER, "updated.email");
+  private static final String CREATE_STAGING = "CREATE TEMPORARY TABLE IF NOT EXISTS user_staging (position INT NOT NULL, name VARCHAR(255), email VARCHAR(255), password VARCHAR(255)) ON COMMIT DELETE ROWS";
+  private static final String COPY_STAGING = "COPY user_staging (position, name, email, password) FROM STDIN (FORMAT csv)";
+  // The first of several rows with the same email wins, like it would with one signup after the other
+  private static final String INSERT_STAGED = "WITH inserted AS (INSERT INTO authentication.user (name, email, password) SELECT DISTINCT ON (email) name, email, password FROM user_staging ORDER BY email, position ON CONFLICT (email) DO NOTHING RETURNING email) "
+      + "SELECT inserted.email FROM inserted, " + notify(InvalidationEvent.Type.USER, "inserted.email");
 
   private final JdbcClient jdbcClient;
+  private final DataSource dataSource;
 
-  public UserRepository(JdbcClient jdbcClient) {
+  public UserRepository(JdbcClient jdbcClient, DataSource dataSource) {
     this.jdbcClient = jdbcClient;
+    this.dataSource = dataSource;
   }
 
-  public void add(User user) {
-    long affected = jdbcClient.sql(INSERT)
-        .param("name", user.name())
-        .param("email", user.email())
-        .param("password", user.password())
-        .update();
+  /**
+   * Adds the user in a single round trip, and publishes it to the caches of the other nodes when the transaction commits.
+   *
+   * @return false if a user with the same email already exists
+   */
+  public boolean add(User user) {
+    RepositoryEvent event = new RepositoryEvent();
+    event.begin();
+    long rows = -1;
+    try {
+      List<String> inserted = jdbcClient.sql(INSERT)
+          .param("name", user.name())
+          .param("email", user.email())
+          .param("password", user.password())
+          .query(String.class)
+          .list();
 
-    Assert.isTrue(affected == 1, "Could not add user.");
+      rows = inserted.size();
+      return !inserted.isEmpty();
+    } finally {
+      event.complete(NAME, "add", INSERT, rows);
+    }
+  }
+
+  /**
+   * Streams the users into a staging table with {@code COPY} and moves them into the user table with a single insert. Must run
+   * in a transaction, the staging table is emptied on commit.
+   *
+   * @return the emails of the added users, the others already existed or were duplicates within the given users
+   */
+  public Set<String> addAll(List<User> users) {
+    StringBuilder csv = new StringBuilder(users.size() * 128);
+    for (int i = 0; i < users.size(); i++) {
+      User user = users.get(i);
+      csv.append(i).append(',').append(quote(user.name())).append(',').append(quote(user.email())).append(',')
+          .append(quote(user.password())).append('\n');
+    }
+
+    RepositoryEvent event = new RepositoryEvent();
+    event.begin();
+    long rows = -1;
+    Connection connection = DataSourceUtils.getConnection(dataSource);
+    try {
+      jdbcClient.sql(CREATE_STAGING).update();
+      connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGING, new StringReader(csv.toString()));
+      Set<String> added = new HashSet<>(jdbcClient.sql(INSERT_STAGED).query(String.class).list());
+      rows = added.size();
+      return added;
+    } catch (SQLException e) {
+      throw new IllegalStateException("Could not copy users", e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      DataSourceUtils.releaseConnection(connection, dataSource);
+      event.complete(NAME, "addAll", INSERT_STAGED, rows);
+    }
   }
 
   public Optional<User> findByEmail(String email) {
-    return jdbcClient.sql(FIND_BY_EMAIL)
-        .param("email", email)
-        .query(User.class)
-        .optional();
+    RepositoryEvent event = new RepositoryEvent();
+    event.begin();
+    long rows = -1;
+    try {
+      Optional<User> user = jdbcClient.sql(FIND_BY_EMAIL)
+          .param("email", email)
+          .query(User.class)
+          .optional();
+      rows = user.isPresent() ? 1 : 0;
+      return user;
+    } finally {
+      event.complete(NAME, "findByEmail", FIND_BY_EMAIL, rows);
+    }
+  }
+
+  /**
+   * Replaces the password hash of the user, and publishes the change to the caches of the other nodes.
+   *
+   * @return false if the user does not exist anymore or its hash is not the previous one
+   */
+  public boolean updatePassword(String email, String previousPassword, String password) {
+    RepositoryEvent event = new RepositoryEvent();
+    event.begin();
+    long rows = -1;
+    try {
+      List<String> updated = jdbcClient.sql(UPDATE_PASSWORD)
+          .param("email", email)
+          .param("previousPassword", previousPassword)
+          .param("password", password)
+          .query(String.class)
+          .list();
+
+      rows = updated.size();
+      return !updated.isEmpty();
+    } finally {
+      event.complete(NAME, "updatePassword", UPDATE_PASSWORD, rows);
+    }
+  }
+
+  /**
+   * The {@code pg_notify} call of a statement that publishes an {@link InvalidationEvent} per row, as a function in its FROM
+   * clause. The notifications are delivered when the transaction commits, and dropped when it rolls back.
+   */
+  public static String notify(InvalidationEvent.Type type, String keyExpression) {
+    return "pg_notify('" + InvalidationEvent.CHANNEL + "', " + type.payload(keyExpression) + ")";
+  }
+
+  private static String quote(String value) {
+    return '"' + value.replace("\"", "\"\"") + '"';
   }
 }
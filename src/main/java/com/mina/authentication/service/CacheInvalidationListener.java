@@ -0,0 +1,300 @@
+package com.mina.authentication.service;
+
+import com.mina.authentication.config.AuthMetrics;
+import com.mina.authentication.domain.InvalidationEvent;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies the {@link InvalidationEvent}s of all nodes to the caches of this node. The events are received on one dedicated
+ * {@code LISTEN} connection outside of the pool, and applied in batches of the events that arrive within the batch window.
+ * <p>
+ * Events that were published while this node was not listening are lost, so after every (re)connect, and whenever a sequence
+ * number stays missing for longer than the gap timeout, the user cache is flushed and the revocation filter rebuilt.
+ */
+@Component
+public class CacheInvalidationListener implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(CacheInvalidationListener.class);
+  private static final String LISTEN = "LISTEN " + InvalidationEvent.CHANNEL;
+  // Events with a higher number are published after the LISTEN, the lower ones are covered by the flush
+  private static final String LAST_SEQUENCE = "SELECT last_value FROM authentication.invalidation_seq";
+  private static final String PING = "SELECT 1";
+
+  private final HikariDataSource primaryDataSource;
+  private final UserCache userCache;
+  private final TokenRevocationService tokenRevocationService;
+  private final boolean enabled;
+  private final Duration batchWindow;
+  private final int maxBatchSize;
+  private final Duration pollInterval;
+  private final Duration reconnectBackoff;
+  private final Duration maxReconnectBackoff;
+  private final Sequences sequences;
+  private final Counter events;
+  private final MeterRegistry meterRegistry;
+
+  private volatile boolean running;
+  private volatile Thread listener;
+  private volatile Connection connection;
+
+  public CacheInvalidationListener(HikariDataSource primaryDataSource, UserCache userCache,
+      TokenRevocationService tokenRevocationService, AuthMetrics metrics,
+      @Value("${authentication.cache-invalidation.enabled:true}") boolean enabled,
+      @Value("${authentication.cache-invalidation.batch-window:20ms}") Duration batchWindow,
+      @Value("${authentication.cache-invalidation.max-batch-size:1000}") int maxBatchSize,
+      @Value("${authentication.cache-invalidation.gap-timeout:2s}") Duration gapTimeout,
+      @Value("${authentication.cache-invalidation.poll-interval:10s}") Duration pollInterval,
+      @Value("${authentication.cache-invalidation.reconnect-backoff:500ms}") Duration reconnectBackoff,
+      @Value("${authentication.cache-invalidation.max-reconnect-backoff:30s}") Duration maxReconnectBackoff) {
+    this.primaryDataSource = primaryDataSource;
+    this.userCache = userCache;
+    this.tokenRevocationService = tokenRevocationService;
+    this.enabled = enabled;
+    this.batchWindow = batchWindow;
+    this.maxBatchSize = maxBatchSize;
+    this.pollInterval = pollInterval;
+    this.reconnectBackoff = reconnectBackoff;
+    this.maxReconnectBackoff = maxReconnectBackoff;
+    this.sequences = new Sequences(gapTimeout);
+
+    this.meterRegistry = metrics.registry();
+    this.events = Counter.builder("cache.invalidation.events")
+        .description("Invalidation events received from all nodes")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public void start() {
+//    A runtime switch instead of a conditional bean, see DataSourceConfig
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    listener = Thread.ofPlatform().name("cache-invalidation-listener").daemon().start(this::listenLoop);
+  }
+
+  @Override
+  public void stop() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    close(connection); // wakes the listener up from waiting for notifications
+    try {
+      listener.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void listenLoop() {
+    Duration backoff = reconnectBackoff;
+    while (running) {
+      try (Connection connection = connect()) {
+        this.connection = connection;
+        long lastSequence = subscribe(connection);
+        flush("subscribe");
+        sequences.reset(lastSequence);
+        backoff = reconnectBackoff;
+
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (running) {
+          receive(connection, pgConnection);
+        }
+      } catch (SQLException | RuntimeException e) {
+        if (!running) {
+          break;
+        }
+        log.warn("Cache invalidation listener failed, reconnecting in {}", backoff, e);
+        LockSupport.parkNanos(this, backoff.toNanos());
+        backoff = backoff.multipliedBy(2).compareTo(maxReconnectBackoff) < 0 ? backoff.multipliedBy(2) : maxReconnectBackoff;
+      }
+    }
+  }
+
+  // The same database as the pool, but not a pooled connection: it is held for the lifetime of the node
+  private Connection connect() throws SQLException {
+    Properties properties = new Properties();
+//    Unset when the credentials are part of the URL, or provided by the driver's own configuration
+    if (primaryDataSource.getUsername() != null) {
+      properties.setProperty("user", primaryDataSource.getUsername());
+    }
+    if (primaryDataSource.getPassword() != null) {
+      properties.setProperty("password", primaryDataSource.getPassword());
+    }
+    properties.setProperty("tcpKeepAlive", "true");
+    properties.setProperty("ApplicationName", "authentication-cache-invalidation");
+    Connection connection = DriverManager.getConnection(primaryDataSource.getJdbcUrl(), properties);
+    connection.setAutoCommit(true);
+    return connection;
+  }
+
+  private long subscribe(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(LISTEN);
+      try (ResultSet resultSet = statement.executeQuery(LAST_SEQUENCE)) {
+        resultSet.next();
+        return resultSet.getLong(1);
+      }
+    }
+  }
+
+  private void receive(Connection connection, PGConnection pgConnection) throws SQLException {
+    List<InvalidationEvent> batch = new ArrayList<>();
+    collect(pgConnection.getNotifications((int) pollInterval.toMillis()), batch);
+    if (batch.isEmpty()) {
+//      Waiting for notifications does not notice a connection that silently died
+      try (Statement statement = connection.createStatement()) {
+        statement.execute(PING);
+      }
+    } else {
+      long deadline = System.nanoTime() + batchWindow.toNanos();
+      long remaining;
+      while (batch.size() < maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+        collect(pgConnection.getNotifications((int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining))), batch);
+      }
+      apply(batch);
+    }
+    if (sequences.overdue(System.nanoTime())) {
+      flush("gap");
+      sequences.forgetMissing();
+    }
+  }
+
+  private static void collect(PGNotification[] notifications, List<InvalidationEvent> batch) {
+    if (notifications == null) {
+      return;
+    }
+    for (PGNotification notification : notifications) {
+      InvalidationEvent event = InvalidationEvent.parse(notification.getParameter());
+      if (event != null) {
+        batch.add(event);
+      }
+    }
+  }
+
+  void apply(List<InvalidationEvent> batch) {
+    Set<String> users = new HashSet<>();
+    Set<String> revokedTokens = new HashSet<>();
+    boolean gap = false;
+    long now = System.nanoTime();
+    for (InvalidationEvent event : batch) {
+      if (!sequences.seen(event.sequence(), now)) {
+        gap = true;
+        sequences.reset(event.sequence());
+      }
+      if (event.type() == InvalidationEvent.Type.USER) {
+        users.add(event.key());
+      } else if (event.type() == InvalidationEvent.Type.REVOKED_TOKEN) {
+        revokedTokens.add(event.key());
+      }
+    }
+    events.increment(batch.size());
+    if (gap) {
+      flush("gap");
+      return;
+    }
+    userCache.invalidateAll(users);
+    tokenRevocationService.addRevoked(revokedTokens);
+  }
+
+  private void flush(String reason) {
+    userCache.invalidateAll();
+    tokenRevocationService.rebuild();
+    Counter.builder("cache.invalidation.flushes")
+        .description("Full flushes of the caches because invalidation events may have been missed")
+        .tag("reason", reason)
+        .register(meterRegistry)
+        .increment();
+  }
+
+  private static void close(Connection connection) {
+    if (connection == null) {
+      return;
+    }
+    try {
+      connection.close();
+    } catch (SQLException e) {
+      log.debug("Could not close the cache invalidation connection", e);
+    }
+  }
+
+  /**
+   * Tracks the sequence numbers that were skipped. Events are numbered when they are written and delivered when their
+   * transaction commits, so a skipped number is usually an event that is still being committed; only one that does not arrive
+   * within the gap timeout was missed, or rolled back.
+   */
+  static class Sequences {
+
+    // More missing events than this are not worth tracking, the caches are flushed
+    static final int MAX_MISSING = 10_000;
+
+    private final long gapTimeoutNanos;
+    private final TreeMap<Long, Long> missing = new TreeMap<>(); // sequence -> when it was found missing
+    private long next;
+
+    Sequences(Duration gapTimeout) {
+      this.gapTimeoutNanos = gapTimeout.toNanos();
+    }
+
+    void reset(long lastSequence) {
+      next = lastSequence + 1;
+      missing.clear();
+    }
+
+    /**
+     * @return false if too many events are missing before this one
+     */
+    boolean seen(long sequence, long now) {
+      if (sequence < next) {
+        missing.remove(sequence);
+        return true;
+      }
+      if (sequence - next + missing.size() > MAX_MISSING) {
+        return false;
+      }
+      for (long skipped = next; skipped < sequence; skipped++) {
+        missing.put(skipped, now);
+      }
+      next = sequence + 1;
+      return true;
+    }
+
+    // Numbers are found missing in ascending order, so the first one has been missing the longest
+    boolean overdue(long now) {
+      return !missing.isEmpty() && now - missing.firstEntry().getValue() > gapTimeoutNanos;
+    }
+
+    void forgetMissing() {
+      missing.clear();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.mina.authentication.service;
+
+import com.mina.authentication.repository.LoginAttemptPartitionRepository;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates the daily login_attempt partitions ahead of time and drops, or detaches, the ones older than the retention window.
+ * Runs at startup and then periodically; when several nodes run it at once only one does the work.
+ */
+@Component
+public class LoginAttemptPartitionMaintenance {
+
+  private static final Logger log = LoggerFactory.getLogger(LoginAttemptPartitionMaintenance.class);
+
+  public enum RetentionAction { DROP, DETACH }
+
+  private final LoginAttemptPartitionRepository repository;
+  private final TransactionTemplate transactionTemplate;
+  private final Duration retention;
+  private final int premakeDays;
+  private final RetentionAction retentionAction;
+
+  public LoginAttemptPartitionMaintenance(LoginAttemptPartitionRepository repository, TransactionTemplate transactionTemplate,
+      @Value("${authentication.login-attempts.partitions.retention:90d}") Duration retention,
+      @Value("${authentication.login-attempts.partitions.premake-days:7}") int premakeDays,
+      @Value("${authentication.login-attempts.partitions.retention-action:drop}") RetentionAction retentionAction) {
+    this.repository = repository;
+    this.transactionTemplate = transactionTemplate;
+    this.retention = retention;
+    this.premakeDays = premakeDays;
+    this.retentionAction = retentionAction;
+  }
+
+  @Scheduled(fixedDelayString = "${authentication.login-attempts.partitions.maintenance-interval:PT1H}")
+  public void maintain() {
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        if (repository.tryLock()) {
+          maintain(LocalDate.now(ZoneOffset.UTC));
+        }
+      });
+    } catch (RuntimeException e) {
+      log.error("Login attempt partition maintenance failed", e);
+    }
+  }
+
+  private void maintain(LocalDate today) {
+    List<LocalDate> existing = repository.findPartitions();
+
+    for (LocalDate day = today; !day.isAfter(today.plusDays(premakeDays)); day = day.plusDays(1)) {
+      if (!existing.contains(day)) {
+        int moved = repository.create(day);
+        log.info("Created login attempt partition for {}, moved {} rows from the default partition", day, moved);
+      }
+    }
+
+//    A partition is only removed once all of its rows are older than the retention window
+    LocalDate oldestKept = today.minusDays(retention.toDays());
+    existing.stream()
+        .filter(day -> day.plusDays(1).isBefore(oldestKept) || day.plusDays(1).isEqual(oldestKept))
+        .forEach(day -> {
+          if (retentionAction == RetentionAction.DETACH) {
+            repository.detach(day);
+          } else {
+            repository.drop(day);
+          }
+          log.info("Removed login attempt partition for {} ({})", day, retentionAction);
+        });
+  }
+}
@@ -0,0 +1,301 @@
+package com.mina.authentication.service;
+
+import com.mina.authentication.config.AuthMetrics;
+import com.mina.authentication.config.DatabaseBulkheads;
+import com.mina.authentication.domain.LoginAttempt;
+import com.mina.authentication.repository.LoginAttemptRepository;
+import com.mina.authentication.repository.LoginStatsRepository;
+import com.mina.authentication.repository.SpoolOffsetRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind recorder for login attempts. Attempts are queued in memory and written by a background flusher in JDBC batches.
+ * <p>
+ * An attempt stays in the queue until the batch containing it is committed, so every attempt is always visible either through
+ * {@link #pending(String)} or in the database. When the queue is full, typically because the database stalls, the attempt is
+ * appended to the {@link LoginAttemptSpool} and replayed by the flusher once the database has caught up. A spooled attempt is
+ * also kept in memory by email until its replay commits, so it is pending as well; only attempts spooled before a restart
+ * show up after their replay. Without room in the spool the caller waits for a short while and then writes its attempt
+ * itself, which slows bursts down instead of dropping attempts. The login statistics are incremented in the same
+ * transaction as the attempts are written.
+ */
+@Component
+public class LoginAttemptRecorder implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(LoginAttemptRecorder.class);
+
+  private final LoginAttemptRepository repository;
+  private final LoginStatsRepository statsRepository;
+  private final LoginAttemptSpool spool;
+  private final SpoolOffsetRepository spoolOffsetRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final DatabaseBulkheads bulkheads;
+  private final AuthMetrics metrics;
+  private final BlockingQueue<LoginAttempt> queue;
+  private final int batchSize;
+  private final Duration flushInterval;
+  private final Duration offerTimeout;
+  private final int maxSpooled;
+  private final Map<String, List<LoginAttempt>> spooled = new ConcurrentHashMap<>(); // not replayed yet, by email
+  private final AtomicInteger spooledCount = new AtomicInteger();
+
+  private volatile boolean running;
+  private volatile Thread flusher;
+  private LoginAttemptSpool.Offset replayed; // null until read from the database, only used by the flusher
+
+  public LoginAttemptRecorder(LoginAttemptRepository repository, LoginStatsRepository statsRepository,
+      LoginAttemptSpool spool, SpoolOffsetRepository spoolOffsetRepository, TransactionTemplate transactionTemplate,
+      DatabaseBulkheads bulkheads, AuthMetrics metrics,
+      @Value("${authentication.login-attempts.queue-capacity:10000}") int queueCapacity,
+      @Value("${authentication.login-attempts.batch-size:500}") int batchSize,
+      @Value("${authentication.login-attempts.flush-interval:200ms}") Duration flushInterval,
+      @Value("${authentication.login-attempts.offer-timeout:50ms}") Duration offerTimeout,
+      @Value("${authentication.login-attempts.spool.max-pending:100000}") int maxSpooled) {
+    this.repository = repository;
+    this.statsRepository = statsRepository;
+    this.spool = spool;
+    this.spoolOffsetRepository = spoolOffsetRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.bulkheads = bulkheads;
+    this.metrics = metrics;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.batchSize = batchSize;
+    this.flushInterval = flushInterval;
+    this.offerTimeout = offerTimeout;
+    this.maxSpooled = maxSpooled;
+  }
+
+  public void record(LoginAttempt loginAttempt) {
+    if (running) {
+      if (queue.offer(loginAttempt)) {
+        wakeUpFlusher();
+        return;
+      }
+//      A full queue goes to the spool, waiting for room is the last resort before writing on the request thread
+      if (spool(loginAttempt)) {
+        return;
+      }
+      if (offer(loginAttempt)) {
+        wakeUpFlusher();
+        return;
+      }
+    }
+    metrics.stage("attempt_insert", () -> write(() -> {
+      repository.add(loginAttempt);
+      statsRepository.increment(List.of(loginAttempt));
+    }));
+  }
+
+  /**
+   * Attempts of the given user that are not written to the database yet.
+   */
+  public List<LoginAttempt> pending(String email) {
+    List<LoginAttempt> queued = queue.stream()
+        .filter(loginAttempt -> loginAttempt.email().equals(email))
+        .toList();
+    List<LoginAttempt> spooledAttempts = spooled.getOrDefault(email, List.of());
+    if (spooledAttempts.isEmpty()) {
+      return queued;
+    }
+    List<LoginAttempt> pending = new ArrayList<>(spooledAttempts);
+    pending.addAll(queued);
+    return pending;
+  }
+
+  @Override
+  public void start() {
+    running = true;
+    flusher = Thread.ofPlatform().name("login-attempt-flusher").daemon().start(this::flushLoop);
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    Thread thread = flusher;
+    LockSupport.unpark(thread);
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    // Attempts offered while the flusher was finishing
+    drain();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  // Stopped after the web server has finished its graceful shutdown, so in-flight logins are still recorded
+  @Override
+  public int getPhase() {
+    return SmartLifecycle.DEFAULT_PHASE - 2048;
+  }
+
+  // The permit covers the whole transaction, the statistics included, for as long as it holds its connection
+  private void write(Runnable work) {
+    bulkheads.attemptWrites().run(() -> transactionTemplate.executeWithoutResult(status -> work.run()));
+  }
+
+  private void wakeUpFlusher() {
+    if (queue.size() >= batchSize) {
+      LockSupport.unpark(flusher);
+    }
+  }
+
+  /**
+   * Appends the attempt to the spool and keeps it in memory until its replay. It is kept before it is appended, so the replay
+   * cannot remove it before it is there.
+   */
+  private boolean spool(LoginAttempt loginAttempt) {
+    if (!spool.isOpen()) {
+      return false;
+    }
+    if (spooledCount.incrementAndGet() > maxSpooled) {
+      spooledCount.decrementAndGet();
+      return false;
+    }
+    spooled.compute(loginAttempt.email(), (email, attempts) -> append(attempts, loginAttempt));
+    if (spool.append(loginAttempt)) {
+      return true;
+    }
+    unspool(loginAttempt);
+    return false;
+  }
+
+  private void unspool(LoginAttempt loginAttempt) {
+    boolean[] removed = new boolean[1];
+    spooled.computeIfPresent(loginAttempt.email(), (email, attempts) -> {
+      List<LoginAttempt> remaining = new ArrayList<>(attempts);
+      removed[0] = remaining.remove(loginAttempt);
+      return remaining.isEmpty() ? null : List.copyOf(remaining);
+    });
+    if (removed[0]) {
+      spooledCount.decrementAndGet();
+    }
+  }
+
+  private static List<LoginAttempt> append(List<LoginAttempt> attempts, LoginAttempt loginAttempt) {
+    if (attempts == null) {
+      return List.of(loginAttempt);
+    }
+    List<LoginAttempt> appended = new ArrayList<>(attempts.size() + 1);
+    appended.addAll(attempts);
+    appended.add(loginAttempt);
+    return List.copyOf(appended);
+  }
+
+  private boolean offer(LoginAttempt loginAttempt) {
+    try {
+      return queue.offer(loginAttempt, offerTimeout.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private void flushLoop() {
+    boolean replaying = false;
+    while (running) {
+      if (queue.size() < batchSize && !replaying) {
+        LockSupport.parkNanos(this, flushInterval.toNanos());
+      }
+      spool.sync();
+//      New attempts first, the spool is replayed a batch at a time after them
+      int replayedCount = flush() ? replay() : -1;
+      replaying = replayedCount > 0;
+      if (replayedCount < 0) {
+        LockSupport.parkNanos(this, flushInterval.toNanos()); // back off while the database is failing
+      }
+    }
+    drain();
+  }
+
+  private void drain() {
+    while (!queue.isEmpty() && flush()) {
+      // flush until the queue is empty or the database fails
+    }
+  }
+
+  /**
+   * Writes the next batch of spooled attempts together with the offset after them.
+   *
+   * @return the number of replayed attempts, -1 if the database failed
+   */
+  private int replay() {
+    if (!spool.isOpen()) {
+      return 0;
+    }
+    try {
+      if (replayed == null) {
+        replayed = spoolOffsetRepository.find(spool.id()).orElseGet(spool::start);
+      }
+      if (!spool.hasUnread(replayed)) {
+        return 0;
+      }
+      LoginAttemptSpool.Batch batch = spool.read(replayed, batchSize);
+      metrics.stage("attempt_replay", () -> write(() -> {
+        if (!batch.loginAttempts().isEmpty()) {
+          repository.addAll(batch.loginAttempts());
+          statsRepository.increment(batch.loginAttempts());
+        }
+        spoolOffsetRepository.save(spool.id(), batch.next());
+      }));
+      replayed = batch.next();
+      spool.release(replayed);
+//      Attempts spooled before a restart were never kept in memory, removing them changes nothing
+      batch.loginAttempts().forEach(this::unspool);
+      return batch.loginAttempts().size();
+    } catch (RuntimeException e) {
+      log.error("Could not replay spooled login attempts, they will be retried", e);
+      return -1;
+    }
+  }
+
+  /**
+   * Writes the oldest queued attempts and only then removes them from the queue. This is the only place elements are removed, so
+   * the polled elements are exactly the ones that were written.
+   */
+  private synchronized boolean flush() {
+    List<LoginAttempt> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+    Iterator<LoginAttempt> iterator = queue.iterator();
+    while (iterator.hasNext() && batch.size() < batchSize) {
+      batch.add(iterator.next());
+    }
+    if (batch.isEmpty()) {
+      return true;
+    }
+
+    try {
+      metrics.stage("attempt_flush", () -> write(() -> {
+        repository.addAll(batch);
+        statsRepository.increment(batch);
+      }));
+    } catch (RuntimeException e) {
+      log.error("Could not write {} login attempts, they will be retried", batch.size(), e);
+      return false;
+    }
+
+    for (int i = 0; i < batch.size(); i++) {
+      queue.poll();
+    }
+    return true;
+  }
+}
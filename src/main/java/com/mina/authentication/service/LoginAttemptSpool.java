@@ -0,0 +1,331 @@
+package com.mina.authentication.service;
+
+import com.mina.authentication.config.AuthMetrics;
+import com.mina.authentication.domain.LoginAttempt;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Append-only log of the login attempts that did not fit into the queue of the {@link LoginAttemptRecorder}, kept in
+ * memory-mapped segment files so an append costs no system call and survives a restart. The recorder replays it into the
+ * database and stores the offset it has replayed up to in the same transaction, so every spooled attempt is written once.
+ * <p>
+ * A record is its payload length, the CRC32C of the payload and the payload. The length is written last, and a record with a
+ * wrong checksum was torn by a crash: reading continues with the next segment, a new one is started at every startup.
+ */
+@Component
+public class LoginAttemptSpool implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(LoginAttemptSpool.class);
+  private static final String SEGMENT_SUFFIX = ".spool";
+  private static final int HEADER = 8; // length and checksum
+  private static final int FIXED_PAYLOAD = 8 + 4 + 1; // epoch seconds, nanos, success; the email follows
+
+  /**
+   * A position in the spool, the start of the next record to read.
+   */
+  public record Offset(long segment, int position) {
+
+  }
+
+  /**
+   * @param next the offset after the last of the attempts
+   */
+  public record Batch(List<LoginAttempt> loginAttempts, Offset next) {
+
+  }
+
+  private final Path directory;
+  private final int segmentSize;
+  private final int maxSegments;
+  private final ConcurrentSkipListMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+  private final Counter spooled;
+  private final Counter rejected;
+  private final Counter torn;
+
+  private FileChannel lockChannel;
+  private UUID id;
+  private volatile boolean open;
+  private volatile Offset written; // end of the last complete record, only advanced under the lock of this
+  private boolean dirty; // guarded by this
+
+  public LoginAttemptSpool(AuthMetrics metrics,
+      @Value("${authentication.login-attempts.spool.enabled:false}") boolean enabled,
+      @Value("${authentication.login-attempts.spool.directory:#{null}}") Path directory,
+      @Value("${authentication.login-attempts.spool.segment-size:16MB}") DataSize segmentSize,
+      @Value("${authentication.login-attempts.spool.max-segments:64}") int maxSegments) {
+    this.directory = directory;
+    this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+    this.maxSegments = maxSegments;
+
+    MeterRegistry meterRegistry = metrics.registry();
+    this.spooled = Counter.builder("login.attempts.spooled")
+        .description("Login attempts appended to the spool because the queue was full")
+        .register(meterRegistry);
+    this.rejected = Counter.builder("login.attempts.spool.rejected")
+        .description("Login attempts that did not fit into the spool either, they were written on the request thread")
+        .register(meterRegistry);
+    this.torn = Counter.builder("login.attempts.spool.torn")
+        .description("Records with a wrong checksum, the rest of their segment is skipped")
+        .register(meterRegistry);
+
+    if (enabled && directory == null) {
+//      A default directory would be shared by the nodes started from the same working directory or volume
+      throw new IllegalStateException("authentication.login-attempts.spool.directory must be set to a directory of this node");
+    }
+    if (enabled) {
+      try {
+        open();
+      } catch (IOException | RuntimeException e) {
+        log.warn("Could not open the login attempt spool in {}, a full queue is written on the request thread", directory, e);
+      }
+    }
+  }
+
+  public boolean isOpen() {
+    return open;
+  }
+
+  /**
+   * Identifies the spool in the database, a node started with an empty directory has a new one.
+   */
+  public UUID id() {
+    return id;
+  }
+
+  /**
+   * The offset of the oldest spooled record, where replay starts when the database has no offset of this spool.
+   */
+  public Offset start() {
+    return new Offset(segments.firstKey(), 0);
+  }
+
+  /**
+   * @return false if the spool is not open or full, then the caller must write the attempt itself
+   */
+  public boolean append(LoginAttempt loginAttempt) {
+    if (!open) {
+      return false;
+    }
+    byte[] email = loginAttempt.email().getBytes(StandardCharsets.UTF_8);
+    ByteBuffer payload = ByteBuffer.allocate(FIXED_PAYLOAD + email.length)
+        .putLong(loginAttempt.createdAt().toEpochSecond(ZoneOffset.UTC))
+        .putInt(loginAttempt.createdAt().getNano())
+        .put((byte) (loginAttempt.success() ? 1 : 0))
+        .put(email);
+    CRC32C crc = new CRC32C();
+    crc.update(payload.array());
+
+    synchronized (this) {
+      Offset end = written;
+      long segment = end.segment();
+      int position = end.position();
+      if (position + HEADER + payload.capacity() > segmentSize) {
+        if (segments.size() >= maxSegments || !roll()) {
+          rejected.increment();
+          return false;
+        }
+        segment = written.segment();
+        position = 0;
+      }
+      MappedByteBuffer buffer = segments.get(segment);
+      buffer.put(position + HEADER, payload.array());
+      buffer.putInt(position + 4, (int) crc.getValue());
+      buffer.putInt(position, payload.capacity()); // a record without its length is not there yet
+      written = new Offset(segment, position + HEADER + payload.capacity());
+      dirty = true;
+    }
+    spooled.increment();
+    return true;
+  }
+
+  public boolean hasUnread(Offset from) {
+    return open && !from.equals(written);
+  }
+
+  /**
+   * Reads at most max attempts starting at the given offset.
+   */
+  public Batch read(Offset from, int max) {
+    List<LoginAttempt> loginAttempts = new ArrayList<>();
+    Offset end = written;
+//    The segment of the offset is deleted once it is replayed completely. An offset after the last segment is one of a
+//    directory that was emptied, its segments are numbered from the start again.
+    Map.Entry<Long, MappedByteBuffer> segment = segments.ceilingEntry(from.segment());
+    if (segment == null) {
+      segment = segments.firstEntry();
+    }
+    int position = segment.getKey() == from.segment() ? from.position() : 0;
+
+    while (loginAttempts.size() < max) {
+      if (segment.getKey() == end.segment() && position >= end.position()) {
+        break;
+      }
+      LoginAttempt loginAttempt = decode(segment.getValue(), position);
+      if (loginAttempt == null) {
+//        The end of a segment that was rolled over, or of one that was written until a crash
+        Map.Entry<Long, MappedByteBuffer> next = segments.higherEntry(segment.getKey());
+        if (next == null) {
+          break;
+        }
+        segment = next;
+        position = 0;
+        continue;
+      }
+      loginAttempts.add(loginAttempt);
+      position += HEADER + segment.getValue().getInt(position);
+    }
+    return new Batch(loginAttempts, new Offset(segment.getKey(), position));
+  }
+
+  /**
+   * Deletes the segments before the given offset, they are replayed.
+   */
+  public void release(Offset replayed) {
+    for (Long segment : segments.headMap(replayed.segment()).keySet()) {
+      segments.remove(segment);
+      try {
+        Files.deleteIfExists(segmentFile(segment));
+      } catch (IOException e) {
+        log.warn("Could not delete the replayed spool segment {}", segment, e);
+      }
+    }
+  }
+
+  /**
+   * Writes the appended records to disk, before that they survive a crash of the process but not of the machine.
+   */
+  public void sync() {
+    MappedByteBuffer buffer;
+    synchronized (this) {
+      if (!dirty) {
+        return;
+      }
+      dirty = false;
+      buffer = segments.get(written.segment());
+    }
+    buffer.force();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (!open) {
+      return;
+    }
+    open = false;
+    segments.get(written.segment()).force();
+    lockChannel.close(); // releases the lock
+  }
+
+  private void open() throws IOException {
+    Files.createDirectories(directory);
+    lockChannel = FileChannel.open(directory.resolve("lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    FileLock lock = lockChannel.tryLock();
+    if (lock == null) {
+      lockChannel.close();
+      throw new IOException("The spool is used by another process");
+    }
+
+    Path idFile = directory.resolve("spool.id");
+    if (!Files.exists(idFile)) {
+      Files.writeString(idFile, UUID.randomUUID().toString());
+    }
+    id = UUID.fromString(Files.readString(idFile).trim());
+
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+        String name = file.getFileName().toString();
+        segments.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), map(file));
+      }
+    }
+    written = new Offset(segments.isEmpty() ? -1 : segments.lastKey(), segmentSize);
+    if (!roll()) {
+      throw new IOException("Could not create a spool segment");
+    }
+    open = true;
+  }
+
+  // Starts the segment after the last one, the caller holds the lock of this
+  private boolean roll() {
+    long segment = written.segment() + 1;
+    try (FileChannel channel = FileChannel.open(segmentFile(segment), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      segments.put(segment, channel.map(MapMode.READ_WRITE, 0, segmentSize));
+    } catch (IOException e) {
+      log.error("Could not create the spool segment {}", segment, e);
+      return false;
+    }
+    MappedByteBuffer previous = segments.get(written.segment());
+    if (previous != null) {
+      previous.force();
+    }
+    written = new Offset(segment, 0);
+    return true;
+  }
+
+  private Path segmentFile(long segment) {
+    return directory.resolve("%020d%s".formatted(segment, SEGMENT_SUFFIX));
+  }
+
+  // Segments of an earlier run are only read
+  private static MappedByteBuffer map(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return channel.map(MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  /**
+   * @return null at the end of the records of the segment
+   */
+  private LoginAttempt decode(MappedByteBuffer buffer, int position) {
+    if (position + HEADER > buffer.capacity()) {
+      return null;
+    }
+    int length = buffer.getInt(position);
+    if (length == 0) {
+      return null;
+    }
+    if (length < FIXED_PAYLOAD || position + HEADER + length > buffer.capacity()) {
+      torn.increment();
+      return null;
+    }
+    byte[] payload = new byte[length];
+    buffer.get(position + HEADER, payload);
+    CRC32C crc = new CRC32C();
+    crc.update(payload);
+    if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+      torn.increment();
+      return null;
+    }
+
+    ByteBuffer record = ByteBuffer.wrap(payload);
+    LocalDateTime createdAt = LocalDateTime.ofEpochSecond(record.getLong(), record.getInt(), ZoneOffset.UTC);
+    boolean success = record.get() == 1;
+    String email = new String(payload, FIXED_PAYLOAD, length - FIXED_PAYLOAD, StandardCharsets.UTF_8);
+    return new LoginAttempt(null, email, success, createdAt);
+  }
+}
@@ -0,0 +1,157 @@
+package com.mina.authentication.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mina.authentication.domain.LoginAttempt;
+import com.mina.authentication.domain.LoginAttemptFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The failed logins per email behind {@link LoginLockout}, in a sliding window made of time buckets that are updated with CAS
+ * only. Loading the recent attempts is left to the caller, so that the servlet and the reactive applications can seed a
+ * window in their own way.
+ */
+public class LoginFailureWindows {
+
+  private final Clock clock;
+  private final int maxFailures;
+  private final int buckets;
+  private final long bucketMillis;
+  private final Cache<String, FailureWindow> windows;
+
+  public LoginFailureWindows(MeterRegistry meterRegistry, Clock clock, int maxFailures, Duration window, int buckets,
+      long maximumSize) {
+    this.clock = clock;
+    this.maxFailures = maxFailures;
+    this.buckets = buckets;
+    this.bucketMillis = Math.max(1, window.toMillis() / buckets);
+    this.windows = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterAccess(window)
+        .ticker(() -> clock.millis() * 1_000_000)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, windows, "login-lockout");
+  }
+
+  /**
+   * @return how long until the account is unlocked, zero if it is not locked, or {@code null} if the email has no window yet
+   * and has to be {@link #seed seeded} first
+   */
+  public Duration retryAfter(String email) {
+    FailureWindow window = windows.getIfPresent(email);
+    return window == null ? null : window.retryAfter(epoch(clock.millis()));
+  }
+
+  /**
+   * The attempts a window is seeded from: only the failures since the last successful login count, the attempts are sorted
+   * newest first and no more than {@link #maxFailures()} are needed to tell whether the account is locked.
+   */
+  public LoginAttemptFilter seedFilter() {
+    long oldest = epoch(clock.millis()) - buckets + 1;
+    return new LoginAttemptFilter(LocalDateTime.ofInstant(Instant.ofEpochMilli(oldest * bucketMillis), ZoneId.systemDefault()),
+        null, null);
+  }
+
+  public int maxFailures() {
+    return maxFailures;
+  }
+
+  /**
+   * Seeds the window of an email from its recent attempts, newest first, unless a concurrent seed got there first.
+   *
+   * @return how long until the account is unlocked, zero if it is not locked
+   */
+  public Duration seed(String email, List<LoginAttempt> loginAttempts) {
+    long epoch = epoch(clock.millis());
+    long oldest = epoch - buckets + 1;
+    FailureWindow seeded = new FailureWindow();
+    for (LoginAttempt loginAttempt : loginAttempts) {
+      if (loginAttempt.success()) {
+        break;
+      }
+      long attemptEpoch = epoch(loginAttempt.createdAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+      if (attemptEpoch >= oldest) {
+        seeded.add(attemptEpoch);
+      }
+    }
+    FailureWindow window = windows.asMap().putIfAbsent(email, seeded);
+    return (window == null ? seeded : window).retryAfter(epoch);
+  }
+
+  public void recordFailure(String email) {
+//    A missing window is seeded on the next check, from the attempts that already include this failure
+    FailureWindow window = windows.getIfPresent(email);
+    if (window != null) {
+      window.add(epoch(clock.millis()));
+    }
+  }
+
+  public void recordSuccess(String email) {
+    windows.put(email, new FailureWindow());
+  }
+
+  private long epoch(long millis) {
+    return millis / bucketMillis;
+  }
+
+  /**
+   * One slot per bucket, each holding the bucket's epoch in the high bits and its failure count in the low bits. A slot whose
+   * epoch has fallen out of the window is reset by the first failure that lands on it.
+   */
+  final class FailureWindow {
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final AtomicLongArray slots = new AtomicLongArray(buckets);
+
+    void add(long epoch) {
+      int index = (int) (epoch % buckets);
+      while (true) {
+        long slot = slots.get(index);
+        long slotEpoch = slot >>> COUNT_BITS;
+        if (slotEpoch > epoch || (slotEpoch == epoch && (slot & COUNT_MASK) == COUNT_MASK)) {
+          return; // a newer bucket already took the slot, or the count is saturated
+        }
+        long next = slotEpoch == epoch ? slot + 1 : (epoch << COUNT_BITS) | 1;
+        if (slots.compareAndSet(index, slot, next)) {
+          return;
+        }
+      }
+    }
+
+    /**
+     * @return how long until the failures in the window drop below the maximum, zero if they are below already
+     */
+    Duration retryAfter(long epoch) {
+      long[] counts = new long[buckets]; // indexed by age, oldest first
+      long total = 0;
+      for (int i = 0; i < buckets; i++) {
+        long slot = slots.get(i);
+        long age = epoch - (slot >>> COUNT_BITS);
+        if (slot != 0 && age >= 0 && age < buckets) {
+          counts[(int) (buckets - 1 - age)] += slot & COUNT_MASK;
+          total += slot & COUNT_MASK;
+        }
+      }
+      for (int i = 0; total >= maxFailures; i++) {
+//        Once bucket i has left the window its failures do not count anymore
+        total -= counts[i];
+        if (total < maxFailures) {
+          long unlockedAt = (epoch + i + 1) * bucketMillis;
+          return Duration.ofMillis(unlockedAt - clock.millis());
+        }
+      }
+      return Duration.ZERO;
+    }
+  }
+}
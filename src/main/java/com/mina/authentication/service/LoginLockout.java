@@ -0,0 +1,61 @@
+package com.mina.authentication.service;
+
+import com.mina.authentication.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Locks an account for a while after too many failed logins, before any password is hashed.
+ * <p>
+ * Failures are counted per email in {@link LoginFailureWindows}. A window is seeded from the recent login attempts when the
+ * email is first seen, and evicted once it has been idle for a whole window, so memory is bounded by the number of recently
+ * active accounts.
+ */
+@Component
+public class LoginLockout {
+
+  private final LoginService loginService;
+  private final LoginFailureWindows windows;
+
+  @Autowired
+  public LoginLockout(LoginService loginService, MeterRegistry meterRegistry,
+      @Value("${authentication.login-lockout.max-failures:5}") int maxFailures,
+      @Value("${authentication.login-lockout.window:15m}") Duration window,
+      @Value("${authentication.login-lockout.buckets:15}") int buckets,
+      @Value("${authentication.login-lockout.maximum-size:100000}") long maximumSize) {
+    this(loginService, meterRegistry, Clock.systemUTC(), maxFailures, window, buckets, maximumSize);
+  }
+
+  LoginLockout(LoginService loginService, MeterRegistry meterRegistry, Clock clock, int maxFailures, Duration window,
+      int buckets, long maximumSize) {
+    this.loginService = loginService;
+    this.windows = new LoginFailureWindows(meterRegistry, clock, maxFailures, window, buckets, maximumSize);
+  }
+
+  /**
+   * @throws TooManyRequestsException if the account has reached the maximum number of failures within the window
+   */
+  public void check(String email) {
+    Duration retryAfter = windows.retryAfter(email);
+    if (retryAfter == null) {
+//      Seeded outside the cache's compute so that the query does not hold its lock, a concurrent seed of the same email is dropped
+      retryAfter = windows.seed(email,
+          loginService.findLoginAttempts(email, windows.seedFilter(), null, windows.maxFailures()).loginAttempts());
+    }
+    if (!retryAfter.isZero()) {
+      throw new TooManyRequestsException("Too many failed logins, please retry later", retryAfter);
+    }
+  }
+
+  public void recordFailure(String email) {
+    windows.recordFailure(email);
+  }
+
+  public void recordSuccess(String email) {
+    windows.recordSuccess(email);
+  }
+}
@@ -1,29 +1,101 @@
 package com.mina.authentication.service;
 
+import com.mina.authentication.config.DatabaseBulkheads;
 import com.mina.authentication.domain.LoginAttempt;
+import com.mina.authentication.domain.LoginAttemptCursor;
+import com.mina.authentication.domain.LoginAttemptFilter;
+import com.mina.authentication.domain.LoginAttemptPage;
 import com.mina.authentication.repository.LoginAttemptRepository;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Stream;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
-@Transactional(readOnly = true)
 public class LoginService {
 
+  // Pending attempts have no id yet, they are the newest of their timestamp
+  private static final Comparator<LoginAttempt> NEWEST_FIRST = Comparator.comparing(LoginAttempt::createdAt)
+      .thenComparing(LoginAttempt::id, Comparator.nullsLast(Comparator.naturalOrder()))
+      .reversed();
+
   private final LoginAttemptRepository repository;
+  private final LoginAttemptRecorder recorder;
+  private final DatabaseBulkheads bulkheads;
+  private final TransactionTemplate readOnly;
 
-  public LoginService(LoginAttemptRepository repository) {
+  public LoginService(LoginAttemptRepository repository, LoginAttemptRecorder recorder, DatabaseBulkheads bulkheads,
+      PlatformTransactionManager transactionManager) {
     this.repository = repository;
+    this.recorder = recorder;
+    this.bulkheads = bulkheads;
+    this.readOnly = new TransactionTemplate(transactionManager);
+    this.readOnly.setReadOnly(true);
   }
 
-  @Transactional
+  // Outside of any transaction of the caller: when the recorder writes the attempt itself, it does so in a transaction of its
+  // own on the primary
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
   public void addLoginAttempt(String email, boolean success) {
-    LoginAttempt loginAttempt = new LoginAttempt(email, success, LocalDateTime.now());
-    repository.add(loginAttempt);
+    // Truncated to the database precision, so a queued attempt equals its stored row
+    LoginAttempt loginAttempt = new LoginAttempt(null, email, success, LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+    recorder.record(loginAttempt);
   }
 
   public List<LoginAttempt> findRecentLoginAttempts(String email) {
-    return repository.findRecent(email);
+    return findLoginAttempts(email, LoginAttemptFilter.NONE, null, LoginAttemptRepository.RECENT_COUNT).loginAttempts();
+  }
+
+  /**
+   * A page of attempts, newest first. The first page also contains the attempts that are not written yet.
+   *
+   * @param after null for the first page
+   */
+  public LoginAttemptPage findLoginAttempts(String email, LoginAttemptFilter filter, LoginAttemptCursor after, int size) {
+    // Pending attempts are read first: an attempt leaves the queue only after it is committed, so it cannot be missed by both reads
+    List<LoginAttempt> pending = after == null
+        ? recorder.pending(email).stream().filter(filter::matches).toList()
+        : List.of();
+    // One more than the page size tells whether there is a next page, read in a read-only transaction that a replica may serve
+    List<LoginAttempt> stored = bulkheads.authReads().call(() ->
+        readOnly.execute(status -> repository.findPage(email, filter, after, size + 1)));
+
+    List<LoginAttempt> loginAttempts = stored;
+    if (!pending.isEmpty()) {
+//      A pending attempt written meanwhile is read twice, once without its id
+      loginAttempts = Stream.concat(
+              pending.stream().filter(attempt -> stored.stream().noneMatch(row -> isSameAttempt(attempt, row))),
+              stored.stream())
+          .sorted(NEWEST_FIRST)
+          .limit(size + 1)
+          .toList();
+    }
+
+    if (loginAttempts.size() <= size) {
+      return new LoginAttemptPage(loginAttempts, null);
+    }
+    List<LoginAttempt> page = loginAttempts.subList(0, size);
+    return new LoginAttemptPage(page, next(page, stored));
+  }
+
+  // A cursor after a pending attempt could only compare by time and would skip the stored rows of the same instant, which
+  // sort after it. A page ending with pending attempts continues at the first stored row it left out instead, if any.
+  private static LoginAttemptCursor next(List<LoginAttempt> page, List<LoginAttempt> stored) {
+    LoginAttempt last = page.get(page.size() - 1);
+    if (last.id() != null) {
+      return LoginAttemptCursor.after(last);
+    }
+    int shown = (int) page.stream().filter(loginAttempt -> loginAttempt.id() != null).count();
+    return shown < stored.size() ? LoginAttemptCursor.before(stored.get(shown)) : null;
+  }
+
+  private static boolean isSameAttempt(LoginAttempt pending, LoginAttempt stored) {
+    return pending.success() == stored.success() && pending.createdAt().equals(stored.createdAt());
   }
 }
@@ -0,0 +1,65 @@
+package com.mina.authentication.service;
+
+import com.mina.authentication.domain.LoginStats;
+import com.mina.authentication.domain.LoginStats.Granularity;
+import com.mina.authentication.exceptions.BadRequestException;
+import com.mina.authentication.repository.LoginStatsRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Login statistics served from the rollups maintained by {@link LoginAttemptRecorder}, so a query reads one row per bucket of
+ * the requested range however many attempts it covers. Attempts still queued in the recorder are not counted yet.
+ */
+@Service
+@Transactional(readOnly = true)
+public class LoginStatsService {
+
+  private static final Logger log = LoggerFactory.getLogger(LoginStatsService.class);
+  private static final int MAX_BUCKETS = 10_080; // a week of minutes
+
+  private final LoginStatsRepository repository;
+  private final Duration minuteRetention;
+  private final Duration dayRetention;
+
+  public LoginStatsService(LoginStatsRepository repository,
+      @Value("${authentication.login-stats.minute-retention:7d}") Duration minuteRetention,
+      @Value("${authentication.login-stats.day-retention:400d}") Duration dayRetention) {
+    this.repository = repository;
+    this.minuteRetention = minuteRetention;
+    this.dayRetention = dayRetention;
+  }
+
+  /**
+   * @param email the user, or {@link LoginStats#ALL_USERS}
+   * @param from inclusive, truncated to the granularity
+   * @param to exclusive
+   */
+  public List<LoginStats> findLoginStats(String email, Granularity granularity, LocalDateTime from, LocalDateTime to) {
+    if (!from.isBefore(to)) {
+      throw new BadRequestException("from must be before to");
+    }
+    if (granularity.buckets(from, to) > MAX_BUCKETS) {
+      throw new BadRequestException("The range must cover at most %d buckets, use a coarser granularity".formatted(MAX_BUCKETS));
+    }
+    return repository.find(email, granularity, granularity.truncate(from), to);
+  }
+
+  @Scheduled(fixedDelayString = "${authentication.login-stats.cleanup-interval:PT1H}")
+  @Transactional
+  public void deleteExpired() {
+    LocalDateTime now = LocalDateTime.now();
+    int minutes = repository.deleteBefore(Granularity.MINUTE, now.minus(minuteRetention));
+    int days = repository.deleteBefore(Granularity.DAY, now.minus(dayRetention));
+    if (minutes + days > 0) {
+      log.info("Deleted {} minute and {} day login statistics", minutes, days);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.mina.authentication.service;
+
+import com.mina.authentication.domain.RefreshToken;
+import com.mina.authentication.exceptions.InvalidTokenException;
+import com.mina.authentication.repository.RefreshTokenRepository;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Opaque, single use refresh tokens. A refresh is one indexed update instead of a BCrypt match: the presented token is
+ * exchanged for a new token of the same family. Presenting a used token again means it was stolen, either by the attacker or by
+ * the client, so the whole family is revoked and both have to log in again.
+ */
+@Service
+// The revocation on reuse must be committed although the refresh fails
+@Transactional(noRollbackFor = InvalidTokenException.class)
+public class RefreshTokenService {
+
+  private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+  private static final int TOKEN_BYTES = 32;
+  private static final String INVALID = "Invalid refresh token";
+
+  public record Rotation(String email, String refreshToken) {
+
+  }
+
+  private final RefreshTokenRepository repository;
+  private final UserCache userCache;
+  private final Duration ttl;
+  private final SecureRandom random = new SecureRandom();
+
+  public RefreshTokenService(RefreshTokenRepository repository, UserCache userCache,
+      @Value("${authentication.refresh-tokens.ttl:14d}") Duration ttl) {
+    this.repository = repository;
+    this.userCache = userCache;
+    this.ttl = ttl;
+  }
+
+  /**
+   * Starts a new token family, on login.
+   */
+  public String issue(String email) {
+    return issue(UUID.randomUUID(), email);
+  }
+
+  /**
+   * Uses the given token and returns the next token of its family.
+   */
+  public Rotation rotate(String refreshToken) {
+    byte[] tokenHash = hash(refreshToken);
+    RefreshToken used = repository.use(tokenHash).orElseThrow(() -> rejected(tokenHash));
+
+//    The user cache makes this check free in the common case
+    if (userCache.findByEmail(used.email()).isEmpty()) {
+      repository.revokeFamily(used.familyId());
+      throw new InvalidTokenException(INVALID);
+    }
+    return new Rotation(used.email(), issue(used.familyId(), used.email()));
+  }
+
+  /**
+   * Revokes the family of the given token, on logout. Tokens of other users are ignored.
+   */
+  public void revoke(String refreshToken, String email) {
+    repository.findByHash(hash(refreshToken))
+        .filter(token -> token.email().equals(email))
+        .ifPresent(token -> repository.revokeFamily(token.familyId()));
+  }
+
+  @Scheduled(fixedDelayString = "${authentication.refresh-tokens.cleanup-interval:PT1H}")
+  public void deleteExpired() {
+    int deleted = repository.deleteExpired();
+    if (deleted > 0) {
+      log.info("Deleted {} expired refresh tokens", deleted);
+    }
+  }
+
+  private String issue(UUID familyId, String email) {
+    byte[] bytes = new byte[TOKEN_BYTES];
+    random.nextBytes(bytes);
+    String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    repository.add(hash(refreshToken), familyId, email, ttl);
+    return refreshToken;
+  }
+
+  private InvalidTokenException rejected(byte[] tokenHash) {
+    RefreshToken token = repository.findByHash(tokenHash).orElse(null);
+    if (token != null && token.usedAt() != null && repository.revokeFamily(token.familyId()) > 0) {
+      log.warn("Refresh token of {} was used twice, revoked its family {}", token.email(), token.familyId());
+    }
+    return new InvalidTokenException(INVALID);
+  }
+
+  // The tokens are random, a fast hash is enough and keeps the lookup cheap. Also used by the reactive variant.
+  public static byte[] hash(String refreshToken) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(refreshToken.getBytes(StandardCharsets.US_ASCII));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e); // every JVM is required to support SHA-256
+    }
+  }
+}
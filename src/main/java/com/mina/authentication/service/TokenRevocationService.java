@@ -0,0 +1,131 @@
+package com.mina.authentication.service;
+
+import com.mina.authentication.config.AuthMetrics;
+import com.mina.authentication.helper.BloomFilter;
+import com.mina.authentication.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Revoked access tokens, by jti. Every authenticated request asks {@link #isRevoked(String)}, which is answered by an in-memory
+ * Bloom filter without I/O for almost all tokens; only the tokens the filter might contain are looked up in the database.
+ * <p>
+ * The filter is built from the database at startup and rebuilt periodically to forget expired tokens. Revocations of this
+ * node are added at once, those of other nodes as soon as {@link CacheInvalidationListener} receives them and at the latest
+ * within the refresh interval.
+ */
+@Service
+public class TokenRevocationService {
+
+  private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+  // revoked_at is the start of the inserting transaction, which may commit a while later
+  private static final Duration COMMIT_GRACE = Duration.ofMinutes(1);
+
+  private final RevokedTokenRepository repository;
+  private final long expectedInsertions;
+  private final double falsePositiveRate;
+  private final Counter filterMisses;
+  private final Counter falsePositives;
+  private final Counter revokedHits;
+
+  private volatile BloomFilter filter;
+  private long lastRefreshNanos; // guarded by this
+
+  public TokenRevocationService(RevokedTokenRepository repository, AuthMetrics metrics,
+      @Value("${authentication.token-revocation.expected-insertions:100000}") long expectedInsertions,
+      @Value("${authentication.token-revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+    this.repository = repository;
+    this.expectedInsertions = expectedInsertions;
+    this.falsePositiveRate = falsePositiveRate;
+
+    MeterRegistry meterRegistry = metrics.registry();
+    this.filterMisses = checks(meterRegistry, "not_revoked");
+    this.falsePositives = checks(meterRegistry, "false_positive");
+    this.revokedHits = checks(meterRegistry, "revoked");
+    rebuild();
+  }
+
+  /**
+   * @param jti null for tokens issued before tokens had an id, they cannot be revoked
+   */
+  public boolean isRevoked(String jti) {
+    if (jti == null || !filter.mightContain(jti)) {
+      filterMisses.increment();
+      return false;
+    }
+    boolean revoked = repository.exists(jti);
+    (revoked ? revokedHits : falsePositives).increment();
+    return revoked;
+  }
+
+  public synchronized void revoke(String jti, String email, Instant expiresAt) {
+    repository.add(jti, email, expiresAt);
+    filter.add(jti);
+  }
+
+  /**
+   * Adds revocations of the other nodes as they are published.
+   */
+  public synchronized void addRevoked(Collection<String> jtis) {
+    jtis.forEach(filter::add);
+  }
+
+  /**
+   * Adds the revocations of the other nodes.
+   */
+  @Scheduled(fixedDelayString = "${authentication.token-revocation.refresh-interval:PT5S}")
+  public synchronized void refresh() {
+    long startedAt = System.nanoTime();
+    try {
+//      Overlaps the previous refresh, adding a token twice does not change the filter
+      Duration since = Duration.ofNanos(startedAt - lastRefreshNanos).plus(COMMIT_GRACE);
+      repository.findRevokedWithin(since).forEach(filter::add);
+      lastRefreshNanos = startedAt;
+    } catch (RuntimeException e) {
+      log.error("Could not read the token revocations, retrying in the next refresh", e);
+    }
+  }
+
+  /**
+   * Replaces the filter with one of the tokens that have not expired yet, a Bloom filter cannot forget single values.
+   */
+  @Scheduled(fixedDelayString = "${authentication.token-revocation.rebuild-interval:PT1H}",
+      initialDelayString = "${authentication.token-revocation.rebuild-interval:PT1H}")
+  public synchronized void rebuild() {
+    long startedAt = System.nanoTime();
+    BloomFilter rebuilt = new BloomFilter(expectedInsertions, falsePositiveRate);
+    List<String> active = repository.findActive();
+    active.forEach(rebuilt::add);
+    if (active.size() > expectedInsertions) {
+      log.warn("{} revoked tokens exceed the expected {}, raise authentication.token-revocation.expected-insertions",
+          active.size(), expectedInsertions);
+    }
+    filter = rebuilt;
+    lastRefreshNanos = startedAt;
+    refresh(); // revoked by other nodes while the filter was built
+  }
+
+  @Scheduled(fixedDelayString = "${authentication.token-revocation.rebuild-interval:PT1H}")
+  public void deleteExpired() {
+    int deleted = repository.deleteExpired();
+    if (deleted > 0) {
+      log.info("Deleted {} expired token revocations", deleted);
+    }
+  }
+
+  private static Counter checks(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("token.revocation.checks")
+        .description("Revocation checks of authenticated requests, only false_positive and revoked ones query the database")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+}
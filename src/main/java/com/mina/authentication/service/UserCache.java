@@ -0,0 +1,116 @@
+package com.mina.authentication.service;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mina.authentication.config.DatabaseBulkheads;
+import com.mina.authentication.config.ReplicaRouter;
+import com.mina.authentication.domain.User;
+import com.mina.authentication.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Size bounded, TTL evicting cache in front of {@link UserRepository#findByEmail(String)}.
+ * Concurrent misses for the same email are coalesced into a single query, and hit/miss/eviction counts are published as the
+ * {@code cache.*} metrics tagged with {@code cache=users}.
+ * <p>
+ * Misses are loaded on a virtual thread of their own, outside of the cache's locks: a load waits for the bulkhead and the
+ * database, and a virtual thread waiting inside a synchronized compute would pin its carrier all that time.
+ * <p>
+ * Misses are read in a read-only transaction, which is served by a replica when replicas are configured.
+ */
+@Component
+public class UserCache {
+
+  private final UserRepository repository;
+  private final ReplicaRouter replicaRouter;
+  private final DatabaseBulkheads bulkheads;
+  private final TransactionTemplate readOnly;
+  private final AsyncLoadingCache<String, Optional<User>> cache;
+
+  public UserCache(UserRepository repository, ReplicaRouter replicaRouter, DatabaseBulkheads bulkheads,
+      PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+      @Value("${authentication.user-cache.maximum-size:10000}") long maximumSize,
+      @Value("${authentication.user-cache.ttl:5m}") Duration ttl) {
+    this.repository = repository;
+    this.replicaRouter = replicaRouter;
+    this.bulkheads = bulkheads;
+    this.readOnly = new TransactionTemplate(transactionManager);
+    this.readOnly.setReadOnly(true);
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .executor(Executors.newVirtualThreadPerTaskExecutor())
+        .buildAsync(this::load);
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+  }
+
+  public Optional<User> findByEmail(String email) {
+    CompletableFuture<Optional<User>> user = cache.get(email);
+    try {
+      return user.join();
+    } catch (CompletionException e) {
+//      Caffeine drops a failed load once its completion callbacks have run, which may be after this join returns
+      cache.asMap().remove(email, user);
+//      The exceptions of the load, e.g. the rejection of a full bulkhead, are thrown as they are
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Must be called by every write that changes a user. When called inside a transaction the entry is evicted again after
+   * completion, so a concurrent reader cannot re-populate the cache with the state from before the commit.
+   */
+  public void invalidate(String email) {
+    cache.synchronous().invalidate(email);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          cache.synchronous().invalidate(email);
+        }
+      });
+    }
+  }
+
+  /**
+   * Evicts the users changed by other nodes, see {@link CacheInvalidationListener}.
+   */
+  public void invalidateAll(Collection<String> emails) {
+    cache.synchronous().invalidateAll(emails);
+  }
+
+  public void invalidateAll() {
+    cache.synchronous().invalidateAll();
+  }
+
+  public CacheStats stats() {
+    return cache.synchronous().stats();
+  }
+
+  private Optional<User> load(String email) {
+    Optional<User> user = bulkheads.authReads().call(() -> readOnly.execute(status -> repository.findByEmail(email)));
+//    A replica may not have replayed a signup yet, outside a transaction the primary confirms that the user does not exist.
+//    Without replicas the primary has answered already, unknown emails of a credential stuffing attack cost one query.
+    return user.isPresent() || !replicaRouter.hasReplicas()
+        ? user
+        : bulkheads.authReads().call(() -> repository.findByEmail(email));
+  }
+}
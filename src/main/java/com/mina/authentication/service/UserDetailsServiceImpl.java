@@ -1,30 +1,79 @@
 package com.mina.authentication.service;
 
-import com.mina.authentication.repository.UserRepository;
+import com.mina.authentication.config.AuthMetrics;
 import com.mina.authentication.domain.User;
 import com.mina.authentication.exceptions.NotFoundException;
+import com.mina.authentication.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
+
+  private static final Logger log = LoggerFactory.getLogger(UserDetailsServiceImpl.class);
+
+  /**
+   * The authority of the users listed in {@code authentication.admins}, e.g. for the statistics of all users.
+   */
+  public static final String ADMIN_AUTHORITY = "ROLE_ADMIN";
 
-  private final UserRepository repository;
+  private final UserCache userCache;
+  private final UserRepository userRepository;
+  private final AuthMetrics metrics;
+  private final Set<String> admins;
+  private final Counter rehashed;
 
-  public UserDetailsServiceImpl(UserRepository repository) {
-    this.repository = repository;
+  public UserDetailsServiceImpl(UserCache userCache, UserRepository userRepository, AuthMetrics metrics,
+      @Value("${authentication.admins:}") Set<String> admins) {
+    this.userCache = userCache;
+    this.userRepository = userRepository;
+    this.metrics = metrics;
+    this.admins = admins;
+    this.rehashed = Counter.builder("password.hashing.rehashed")
+        .description("Password hashes replaced on login because their strength differed from the calibrated one")
+        .register(metrics.registry());
   }
 
   @Override
   public UserDetails loadUserByUsername(String email) {
 
-    User user = repository.findByEmail(email).orElseThrow(() ->
-        new NotFoundException(String.format("User does not exist, email: %s", email)));
+    User user = metrics.stage("user_lookup", () -> userCache.findByEmail(email).orElseThrow(() ->
+        new NotFoundException(String.format("User does not exist, email: %s", email))));
 
     return org.springframework.security.core.userdetails.User.builder()
         .username(user.email())
         .password(user.password())
+        .authorities(admins.contains(user.email()) ? new String[] {ADMIN_AUTHORITY} : new String[0])
+        .build();
+  }
+
+  /**
+   * Stores the new hash of a password that was just verified, called by the authentication provider when the stored hash
+   * needs an upgrade. A failure only postpones the upgrade to the next login, the login itself succeeds.
+   */
+  @Override
+  public UserDetails updatePassword(UserDetails user, String newPassword) {
+    String email = user.getUsername();
+    try {
+      if (!metrics.stage("password_rehash", () -> userRepository.updatePassword(email, user.getPassword(), newPassword))) {
+        return user;
+      }
+    } catch (DataAccessException e) {
+      log.warn("Could not store the rehashed password of {}", email, e);
+      return user;
+    }
+    userCache.invalidate(email);
+    rehashed.increment();
+    return org.springframework.security.core.userdetails.User.withUserDetails(user)
+        .password(newPassword)
         .build();
   }
 }
@@ -0,0 +1,52 @@
+package com.mina.authentication.service;
+
+import java.nio.file.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command line mode: with {@code --authentication.import.file=users.ndjson} the service imports the file and exits, the exit code
+ * tells whether the import completed. The web server is started as usual and serves requests during the import, unless it is
+ * turned off with {@code --spring.main.web-application-type=none}.
+ * <p>
+ * Always registered and checked at startup rather than conditional on the property, conditions are fixed at build time in an
+ * AOT processed build.
+ */
+@Component
+public class UserImportRunner implements ApplicationRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(UserImportRunner.class);
+
+  private final UserImporter importer;
+  private final ConfigurableApplicationContext context;
+  private final Path file;
+
+  public UserImportRunner(UserImporter importer, ConfigurableApplicationContext context,
+      @Value("${authentication.import.file:#{null}}") Path file) {
+    this.importer = importer;
+    this.context = context;
+    this.file = file;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (file == null) {
+      return;
+    }
+    int exitCode = 0;
+    try {
+      importer.importFile(file);
+    } catch (Exception e) {
+      log.error("Import of {} failed, run it again to resume from the last checkpoint", file, e);
+      exitCode = 1;
+    }
+    int code = exitCode;
+    System.exit(SpringApplication.exit(context, () -> code));
+  }
+}
@@ -0,0 +1,335 @@
+package com.mina.authentication.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mina.authentication.config.AuthMetrics;
+import com.mina.authentication.controller.dto.SignupRequest;
+import com.mina.authentication.domain.User;
+import com.mina.authentication.repository.ImportCheckpointRepository;
+import com.mina.authentication.repository.UserRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Imports users from an NDJSON or CSV file ({@code name,email,password} header) without reading it into memory.
+ * <p>
+ * Records are read in chunks. The plain passwords of a chunk are hashed on all cores, passwords that already are BCrypt hashes
+ * are kept, and the chunk is written with {@code COPY} in one transaction, together with the number of committed records so a
+ * failed run continues where it stopped. Every record that is not imported is written to the report next to the file once its
+ * chunk has committed, a crash right after a commit may leave that chunk's lines out of the report but never adds them twice.
+ */
+@Service
+public class UserImporter {
+
+  private static final Logger log = LoggerFactory.getLogger(UserImporter.class);
+  private static final Pattern BCRYPT = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}$");
+  private static final int MAX_LENGTH = 255;
+
+  public record Result(long imported, long duplicates, long invalid) {
+
+  }
+
+  public record ImportRecord(String name, String email, String password) {
+
+  }
+
+  private final UserRepository repository;
+  private final ImportCheckpointRepository checkpointRepository;
+  private final UserCache userCache;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper objectMapper;
+  private final Validator validator;
+  private final AuthMetrics metrics;
+  private final int chunkSize;
+  private final int threads;
+
+  public UserImporter(UserRepository repository, ImportCheckpointRepository checkpointRepository, UserCache userCache, TransactionTemplate transactionTemplate,
+      ObjectMapper objectMapper, Validator validator, AuthMetrics metrics,
+      @Value("${authentication.import.chunk-size:5000}") int chunkSize,
+      @Value("${authentication.import.threads:0}") int threads) {
+    this.repository = repository;
+    this.checkpointRepository = checkpointRepository;
+    this.userCache = userCache;
+    this.transactionTemplate = transactionTemplate;
+    this.objectMapper = objectMapper;
+    this.validator = validator;
+    this.metrics = metrics;
+    this.chunkSize = chunkSize;
+    this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+  }
+
+  public Result importFile(Path file) throws IOException {
+    String checkpoint = file.toAbsolutePath().normalize().toString();
+    Path report = sibling(file, ".report.csv");
+    long committed = checkpointRepository.find(checkpoint).orElse(0L);
+    if (committed > 0) {
+      log.info("Resuming the import of {} after record {}", file, committed);
+    }
+
+    long imported = 0;
+    long duplicates = 0;
+    long invalid = 0;
+    long startedAt = System.nanoTime();
+    PasswordHasher hasher = new PasswordHasher(threads);
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        BufferedWriter reportWriter = committed > 0
+            ? Files.newBufferedWriter(report, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+            : Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+      if (committed == 0) {
+        reportWriter.write("record,email,status,reason\n");
+      }
+      Iterator<ImportRecord> records = isCsv(file) ? new CsvRecords(reader) : ndjson(reader);
+      long position = 0;
+      for (; position < committed && records.hasNext(); position++) {
+        records.next(); // imported by the previous run
+      }
+
+      List<ImportRecord> chunk = new ArrayList<>(chunkSize);
+      while (records.hasNext()) {
+        chunk.add(records.next());
+        if (chunk.size() < chunkSize && records.hasNext()) {
+          continue;
+        }
+
+        long first = position + 1;
+        List<String> reportLines = new ArrayList<>();
+        List<Long> positions = new ArrayList<>(chunk.size());
+        List<User> users = new ArrayList<>(chunk.size());
+        for (ImportRecord record : chunk) {
+          position++;
+          String reason = validate(record);
+          if (reason != null) {
+            invalid++;
+            reportLines.add(reportLine(position, record.email(), "invalid", reason));
+          } else {
+            positions.add(position);
+            users.add(new User(record.name(), record.email(), record.password()));
+          }
+        }
+
+        List<User> hashed = metrics.stage("import_hash", () -> hasher.hash(users));
+        long last = position;
+        Set<String> added = metrics.stage("import_copy", () -> transactionTemplate.execute(status -> {
+          Set<String> emails = repository.addAll(hashed);
+          checkpointRepository.save(checkpoint, last);
+          return emails;
+        }));
+        for (int i = 0; i < hashed.size(); i++) {
+          String email = hashed.get(i).email();
+          if (added.remove(email)) { // only the first record of an email counts as added
+            imported++;
+            userCache.invalidate(email);
+          } else {
+            duplicates++;
+            reportLines.add(reportLine(positions.get(i), email, "duplicate", "email already exists"));
+          }
+        }
+//        Written once the chunk has committed, a chunk that is rolled back is reported by the run that imports it
+        for (String line : reportLines) {
+          reportWriter.write(line);
+        }
+        reportWriter.flush();
+
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        log.info("Imported records {}-{}: {} imported, {} duplicates, {} invalid so far ({} records/s)", first, position,
+            imported, duplicates, invalid, Math.round((position - committed) / seconds));
+        chunk.clear();
+      }
+    } finally {
+      hasher.close();
+    }
+
+    checkpointRepository.delete(checkpoint);
+    log.info("Import of {} finished: {} imported, {} duplicates, {} invalid, report written to {}", file, imported, duplicates,
+        invalid, report);
+    return new Result(imported, duplicates, invalid);
+  }
+
+  /**
+   * @return why the record cannot be imported, or null if it is valid
+   */
+  private String validate(ImportRecord record) {
+    Set<ConstraintViolation<SignupRequest>> violations = new LinkedHashSet<>();
+    violations.addAll(validator.validateValue(SignupRequest.class, "name", record.name()));
+    violations.addAll(validator.validateValue(SignupRequest.class, "email", record.email()));
+    if (record.password() == null || !BCRYPT.matcher(record.password()).matches()) {
+      violations.addAll(validator.validateValue(SignupRequest.class, "password", record.password()));
+    }
+    if (!violations.isEmpty()) {
+      return violations.iterator().next().getMessage();
+    }
+    if (record.name().length() > MAX_LENGTH || record.email().length() > MAX_LENGTH) {
+      return "Name and email must be at most " + MAX_LENGTH + " characters";
+    }
+    return null;
+  }
+
+  private Iterator<ImportRecord> ndjson(BufferedReader reader) throws IOException {
+    MappingIterator<ImportRecord> records = objectMapper.readerFor(ImportRecord.class).readValues(reader);
+    return records;
+  }
+
+  private static String reportLine(long position, String email, String status, String reason) {
+    return position + "," + CsvRecords.quote(email == null ? "" : email) + "," + status + "," + CsvRecords.quote(reason) + "\n";
+  }
+
+  private static boolean isCsv(Path file) {
+    return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+  }
+
+  private static Path sibling(Path file, String suffix) {
+    return file.resolveSibling(file.getFileName() + suffix);
+  }
+
+  /**
+   * Hashes the plain passwords of a chunk in parallel, with plain BCrypt: the bounded encoder of the web requests would reject
+   * a bulk import that saturates it.
+   */
+  private static final class PasswordHasher implements AutoCloseable {
+
+    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+    private final ExecutorService executor;
+
+    PasswordHasher(int threads) {
+      this.executor = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("user-import-hashing-", 0).daemon().factory());
+    }
+
+    List<User> hash(List<User> users) {
+      List<Future<User>> futures = users.stream()
+          .map(user -> executor.submit(() -> BCRYPT.matcher(user.password()).matches()
+              ? user
+              : new User(user.name(), user.email(), encoder.encode(user.password()))))
+          .toList();
+      List<User> hashed = new ArrayList<>(users.size());
+      try {
+        for (Future<User> future : futures) {
+          hashed.add(future.get());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while hashing passwords", e);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Could not hash password", e.getCause());
+      }
+      return hashed;
+    }
+
+    @Override
+    public void close() {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Reads a CSV with a {@code name,email,password} header, fields may be quoted but not span lines.
+   */
+  static final class CsvRecords implements Iterator<ImportRecord> {
+
+    private final BufferedReader reader;
+    private final int[] columns;
+    private String next;
+
+    CsvRecords(BufferedReader reader) throws IOException {
+      this.reader = reader;
+      String header = reader.readLine();
+      if (header == null) {
+        throw new IllegalArgumentException("The CSV file is empty");
+      }
+      List<String> names = parse(header.strip()).stream().map(String::strip).toList();
+      this.columns = new int[] {names.indexOf("name"), names.indexOf("email"), names.indexOf("password")};
+      for (int column : columns) {
+        if (column < 0) {
+          throw new IllegalArgumentException("The CSV header must contain name, email and password: " + header);
+        }
+      }
+      advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public ImportRecord next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      List<String> fields = parse(next);
+      advance();
+      return new ImportRecord(field(fields, columns[0]), field(fields, columns[1]), field(fields, columns[2]));
+    }
+
+    private void advance() {
+      try {
+        do {
+          next = reader.readLine();
+        } while (next != null && next.isBlank());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private static String field(List<String> fields, int column) {
+      return column < fields.size() ? fields.get(column) : null;
+    }
+
+    static List<String> parse(String line) {
+      List<String> fields = new ArrayList<>();
+      StringBuilder field = new StringBuilder();
+      boolean quoted = false;
+      for (int i = 0; i < line.length(); i++) {
+        char c = line.charAt(i);
+        if (quoted) {
+          if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+            field.append('"');
+            i++;
+          } else if (c == '"') {
+            quoted = false;
+          } else {
+            field.append(c);
+          }
+        } else if (c == '"') {
+          quoted = true;
+        } else if (c == ',') {
+          fields.add(field.toString());
+          field.setLength(0);
+        } else {
+          field.append(c);
+        }
+      }
+      fields.add(field.toString());
+      return fields;
+    }
+
+    static String quote(String value) {
+      return '"' + value.replace("\"", "\"\"") + '"';
+    }
+  }
+}
@@ -1,12 +1,13 @@
 package com.mina.authentication.service;
 
+import com.mina.authentication.config.AuthMetrics;
 import com.mina.authentication.controller.dto.SignupRequest;
 import com.mina.authentication.domain.User;
 import com.mina.authentication.exceptions.DuplicateException;
 import com.mina.authentication.repository.UserRepository;
-import java.util.Optional;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
@@ -14,24 +15,28 @@ import org.springframework.transaction.annotation.Transactional;
 public class UserService {
 
   private final UserRepository repository;
+  private final UserCache userCache;
   private final PasswordEncoder passwordEncoder;
+  private final AuthMetrics metrics;
 
-  public UserService(UserRepository repository, PasswordEncoder passwordEncoder) {
+  public UserService(UserRepository repository, UserCache userCache, PasswordEncoder passwordEncoder, AuthMetrics metrics) {
     this.repository = repository;
+    this.userCache = userCache;
     this.passwordEncoder = passwordEncoder;
+    this.metrics = metrics;
   }
 
-  @Transactional
+//  A single auto-committed statement, so no pooled connection is held while the password is hashed
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
   public void signup(SignupRequest request) {
     String email = request.email();
-    Optional<User> existingUser = repository.findByEmail(email);
-    if (existingUser.isPresent()) {
-      throw new DuplicateException(String.format("User with the email address '%s' already exists.", email));
-    }
-
     String hashedPassword = passwordEncoder.encode(request.password());
     User user = new User(request.name(), email, hashedPassword);
-    repository.add(user);
+//    The unique index on email decides, so concurrent signups for the same email cannot both succeed
+    if (!metrics.stage("user_insert", () -> repository.add(user))) {
+      throw new DuplicateException(String.format("User with the email address '%s' already exists.", email));
+    }
+    userCache.invalidate(email);
   }
 
 }
@@ -0,0 +1,37 @@
+package com.mina.authentication.reactive;
+
+import com.mina.authentication.config.AuthMetrics;
+import com.mina.authentication.config.JwtConfig;
+import com.mina.authentication.helper.ErrorBodies;
+import com.mina.authentication.helper.JwtHelper;
+import java.util.Map;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveUserDetailsServiceAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * The signup, login and login attempts endpoints on WebFlux and R2DBC, built with {@code -Preactive}. Same contract and database
+ * as the servlet application, the token handling is shared with it.
+ * <p>
+ * There is no JDBC pool: Liquibase opens its own connection for the migrations, from {@code spring.datasource}.
+ */
+@SpringBootApplication(exclude = {DataSourceAutoConfiguration.class, ReactiveUserDetailsServiceAutoConfiguration.class})
+@EnableScheduling
+@Import({JwtConfig.class, JwtHelper.class, ErrorBodies.class, AuthMetrics.class})
+public class ReactiveMain {
+
+  public static void main(String[] args) {
+    SpringApplication application = new SpringApplication(ReactiveMain.class);
+//    Spring MVC is on the class path as well
+    application.setWebApplicationType(WebApplicationType.REACTIVE);
+    application.setDefaultProperties(Map.of(
+        "spring.liquibase.url", "${spring.datasource.url}",
+        "spring.liquibase.user", "${spring.datasource.username}",
+        "spring.liquibase.password", "${spring.datasource.password}"));
+    application.run(args);
+  }
+}
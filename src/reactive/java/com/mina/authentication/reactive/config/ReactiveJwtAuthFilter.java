@@ -0,0 +1,87 @@
+package com.mina.authentication.reactive.config;
+
+import com.mina.authentication.config.AuthMetrics;
+import com.mina.authentication.exceptions.AccessDeniedException;
+import com.mina.authentication.helper.ErrorBodies;
+import com.mina.authentication.helper.JwtHelper;
+import com.mina.authentication.reactive.service.ReactiveTokenRevocationService;
+import io.jsonwebtoken.Claims;
+import java.util.List;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * The {@link com.mina.authentication.config.JwtAuthFilter} of the reactive variant. The claims are verified on the event loop,
+ * that is CPU work served from the cache for known tokens; only the revocation check of a token the Bloom filter might contain
+ * does I/O.
+ * <p>
+ * Users are never deleted, so unlike the servlet filter it does not look the user up: the verified subject is the user. Not a
+ * bean, WebFlux would run every WebFilter bean outside of the security chain as well.
+ */
+public class ReactiveJwtAuthFilter implements WebFilter {
+
+  private static final String MALFORMED = "Access denied: malformed JWT";
+  private static final String REVOKED = "Access denied: token has been revoked";
+
+  private final JwtHelper jwtHelper;
+  private final ReactiveTokenRevocationService tokenRevocationService;
+  private final ErrorBodies errorBodies;
+  private final AuthMetrics metrics;
+
+  public ReactiveJwtAuthFilter(JwtHelper jwtHelper, ReactiveTokenRevocationService tokenRevocationService,
+      ErrorBodies errorBodies, AuthMetrics metrics) {
+    this.jwtHelper = jwtHelper;
+    this.tokenRevocationService = tokenRevocationService;
+    this.errorBodies = errorBodies;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+//    Login and signup requests have no token, they are passed on like every other request without one
+    if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+      return chain.filter(exchange);
+    }
+
+    String token = authHeader.substring(7);
+    if (!JwtHelper.isWellFormed(token)) {
+      return writeError(exchange, HttpStatus.FORBIDDEN, MALFORMED);
+    }
+    Claims claims;
+    try {
+      claims = metrics.stage("token_verify", () -> jwtHelper.verify(token));
+    } catch (AccessDeniedException e) {
+      return writeError(exchange, HttpStatus.FORBIDDEN, e.getMessage());
+    }
+
+    return tokenRevocationService.isRevoked(claims.getId())
+        .flatMap(revoked -> {
+          if (revoked) {
+            return writeError(exchange, HttpStatus.FORBIDDEN, REVOKED);
+          }
+          exchange.getAttributes().put(JwtHelper.CLAIMS_ATTRIBUTE, claims);
+          UsernamePasswordAuthenticationToken authentication =
+              new UsernamePasswordAuthenticationToken(claims.getSubject(), null, List.of());
+          return chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+        });
+  }
+
+  // The body is written as prepared bytes, a rejection costs no serialization
+  private Mono<Void> writeError(ServerWebExchange exchange, HttpStatus status, String message) {
+    ServerHttpResponse response = exchange.getResponse();
+    response.setStatusCode(status);
+    response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+    DataBuffer body = response.bufferFactory().wrap(errorBodies.of(status.value(), message));
+    return response.writeWith(Mono.just(body));
+  }
+}
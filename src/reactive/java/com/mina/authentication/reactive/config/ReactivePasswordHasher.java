@@ -0,0 +1,110 @@
+package com.mina.authentication.reactive.config;
+
+import com.mina.authentication.config.AuthMetrics;
+import com.mina.authentication.config.CalibratedPasswordEncoder;
+import com.mina.authentication.exceptions.ServiceUnavailableException;
+import com.mina.authentication.jfr.PasswordHashEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The {@link com.mina.authentication.config.BoundedPasswordEncoder} of the reactive variant: the hashing runs on a core sized
+ * scheduler with a bounded queue, never on the event loop. Work that does not fit into the queue, or waited in it longer than
+ * the queue timeout, fails with a {@link ServiceUnavailableException}.
+ */
+public class ReactivePasswordHasher implements AutoCloseable {
+
+  private final PasswordEncoder delegate;
+  private final Scheduler scheduler;
+  private final Duration queueTimeout;
+  private final Duration retryAfter;
+  private final AuthMetrics metrics;
+  private final Timer queueWait;
+  private final Counter rejected;
+
+  public ReactivePasswordHasher(PasswordEncoder delegate, int threads, int queueCapacity, Duration queueTimeout,
+      Duration retryAfter, AuthMetrics metrics) {
+    this.delegate = delegate;
+    this.scheduler = Schedulers.newBoundedElastic(threads, queueCapacity, "password-hashing", 60, true);
+    this.queueTimeout = queueTimeout;
+    this.retryAfter = retryAfter;
+    this.metrics = metrics;
+
+    MeterRegistry meterRegistry = metrics.registry();
+    this.queueWait = Timer.builder("password.hashing.queue.wait")
+        .description("Time hashing requests waited for a thread")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.rejected = Counter.builder("password.hashing.rejected")
+        .description("Hashing requests rejected because the pool was saturated")
+        .register(meterRegistry);
+  }
+
+  public Mono<String> encode(CharSequence rawPassword) {
+    return submit("encode", () -> metrics.stage("password_encode", () -> delegate.encode(rawPassword)),
+        (event, encoded) -> event.cost = CalibratedPasswordEncoder.strength(encoded));
+  }
+
+  public Mono<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+    return submit("match", () -> metrics.stage("password_match", () -> delegate.matches(rawPassword, encodedPassword)),
+        (event, matched) -> {
+          event.cost = CalibratedPasswordEncoder.strength(encodedPassword);
+          event.matched = matched;
+        });
+  }
+
+  /**
+   * Whether the hash should be replaced by a new one of the password, see {@link PasswordEncoder#upgradeEncoding}. Cheap, it
+   * does not hash.
+   */
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  @Override
+  public void close() {
+    scheduler.dispose();
+  }
+
+  private <T> Mono<T> submit(String operation, Supplier<T> work, BiConsumer<PasswordHashEvent, T> describe) {
+    return Mono.defer(() -> {
+      Thread requestThread = Thread.currentThread();
+      long enqueuedAt = System.nanoTime();
+      return Mono.fromCallable(() -> {
+            long waited = System.nanoTime() - enqueuedAt;
+            queueWait.record(waited, TimeUnit.NANOSECONDS);
+            if (waited > queueTimeout.toNanos()) {
+              throw rejected(); // the caller has waited too long already, the hash would only add to the overload
+            }
+            PasswordHashEvent event = new PasswordHashEvent();
+            event.begin();
+            T value = work.get();
+            event.end();
+            if (event.shouldCommit()) {
+              event.operation = operation;
+              event.queueWait = waited;
+              event.requestThread = requestThread;
+              describe.accept(event, value);
+              event.commit();
+            }
+            return value;
+          })
+          .subscribeOn(scheduler);
+    }).onErrorMap(RejectedExecutionException.class, e -> rejected());
+  }
+
+  private ServiceUnavailableException rejected() {
+    rejected.increment();
+    return new ServiceUnavailableException("Too many concurrent authentication requests, please retry later", retryAfter);
+  }
+}
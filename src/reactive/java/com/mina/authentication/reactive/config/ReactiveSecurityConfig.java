@@ -0,0 +1,82 @@
+package com.mina.authentication.reactive.config;
+
+import com.mina.authentication.config.AuthMetrics;
+import com.mina.authentication.config.CalibratedPasswordEncoder;
+import com.mina.authentication.helper.ErrorBodies;
+import com.mina.authentication.helper.JwtHelper;
+import com.mina.authentication.reactive.service.ReactiveTokenRevocationService;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity.CsrfSpec;
+import org.springframework.security.config.web.server.ServerHttpSecurity.FormLoginSpec;
+import org.springframework.security.config.web.server.ServerHttpSecurity.HttpBasicSpec;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.AndServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher.MatchResult;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+
+@Configuration
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfig {
+
+  @Bean
+  public ReactivePasswordHasher passwordHasher(AuthMetrics metrics,
+      @Value("${authentication.password-hashing.threads:0}") int threads,
+      @Value("${authentication.password-hashing.queue-capacity:100}") int queueCapacity,
+      @Value("${authentication.password-hashing.queue-timeout:2s}") Duration queueTimeout,
+      @Value("${authentication.password-hashing.retry-after:1s}") Duration retryAfter,
+      @Value("${authentication.password-hashing.strength:0}") int strength,
+      @Value("${authentication.password-hashing.target-latency:100ms}") Duration targetLatency,
+      @Value("${authentication.password-hashing.min-strength:10}") int minStrength,
+      @Value("${authentication.password-hashing.max-strength:14}") int maxStrength,
+      @Value("${authentication.password-hashing.rehash-tolerance:1}") int rehashTolerance) {
+//    BCrypt is CPU bound, running more hashes in parallel than we have cores only makes every one of them slower
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    int calibrated = strength > 0 ? strength : CalibratedPasswordEncoder.calibrate(targetLatency, minStrength, maxStrength);
+    return new ReactivePasswordHasher(new CalibratedPasswordEncoder(calibrated, rehashTolerance), poolSize, queueCapacity,
+        queueTimeout, retryAfter, metrics);
+  }
+
+  @Bean
+  public SecurityWebFilterChain filterChain(ServerHttpSecurity http, JwtHelper jwtHelper,
+      ReactiveTokenRevocationService tokenRevocationService, ErrorBodies errorBodies, AuthMetrics metrics,
+      @Value("${server.port:8080}") int serverPort,
+      @Value("${management.server.port:-1}") int managementPort) {
+//    Only a management port of its own is trusted, the metrics must not be served on the public port
+    boolean separateManagementPort = managementPort > 0 && managementPort != serverPort;
+    ServerWebExchangeMatcher managementEndpoints = new AndServerWebExchangeMatcher(
+        exchange -> separateManagementPort && exchange.getRequest().getLocalAddress() != null
+            && exchange.getRequest().getLocalAddress().getPort() == managementPort
+            ? MatchResult.match()
+            : MatchResult.notMatch(),
+        ServerWebExchangeMatchers.pathMatchers(HttpMethod.GET, "/actuator/**"));
+    return http
+        .cors(ServerHttpSecurity.CorsSpec::disable)
+        .csrf(CsrfSpec::disable)
+        .httpBasic(HttpBasicSpec::disable)
+        .formLogin(FormLoginSpec::disable)
+        .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+        .authorizeExchange(exchange -> exchange
+//            our public endpoints
+            .pathMatchers(HttpMethod.POST, "/api/auth/signup/**", "/api/auth/login/**").permitAll()
+            .pathMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+            .matchers(managementEndpoints).permitAll()
+//            our private endpoints
+            .anyExchange().authenticated())
+//        Unauthenticated requests are forbidden, as in the servlet application
+        .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN)))
+        .addFilterAt(new ReactiveJwtAuthFilter(jwtHelper, tokenRevocationService, errorBodies, metrics),
+            SecurityWebFiltersOrder.AUTHENTICATION)
+        .build();
+  }
+}
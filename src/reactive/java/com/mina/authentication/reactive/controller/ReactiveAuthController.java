@@ -0,0 +1,136 @@
+package com.mina.authentication.reactive.controller;
+
+import com.mina.authentication.controller.dto.LoginAttemptResponse;
+import com.mina.authentication.controller.dto.LoginRequest;
+import com.mina.authentication.controller.dto.LoginResponse;
+import com.mina.authentication.controller.dto.SignupRequest;
+import com.mina.authentication.domain.LoginAttemptCursor;
+import com.mina.authentication.domain.LoginAttemptFilter;
+import com.mina.authentication.domain.User;
+import com.mina.authentication.exceptions.BadRequestException;
+import com.mina.authentication.exceptions.DuplicateException;
+import com.mina.authentication.helper.JwtHelper;
+import com.mina.authentication.reactive.config.ReactivePasswordHasher;
+import com.mina.authentication.reactive.repository.ReactiveUserRepository;
+import com.mina.authentication.reactive.service.ReactiveLoginLockout;
+import com.mina.authentication.reactive.service.ReactiveLoginService;
+import com.mina.authentication.reactive.service.ReactiveRefreshTokenService;
+import com.mina.authentication.repository.LoginAttemptRepository;
+import io.jsonwebtoken.Claims;
+import jakarta.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Signup, login and login attempts of the {@link com.mina.authentication.controller.AuthController}, non-blocking end to end.
+ * Statuses, headers and bodies are the same, so both variants pass the same integration tests.
+ */
+@RestController
+@RequestMapping(path = "/api/auth", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ReactiveAuthController {
+
+  static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  private static final int MAX_PAGE_SIZE = 100;
+
+  private final ReactiveUserRepository userRepository;
+  private final ReactiveLoginService loginService;
+  private final ReactiveLoginLockout loginLockout;
+  private final ReactiveRefreshTokenService refreshTokenService;
+  private final ReactivePasswordHasher passwordHasher;
+  private final JwtHelper jwtHelper;
+
+  public ReactiveAuthController(ReactiveUserRepository userRepository, ReactiveLoginService loginService,
+      ReactiveLoginLockout loginLockout, ReactiveRefreshTokenService refreshTokenService, ReactivePasswordHasher passwordHasher,
+      JwtHelper jwtHelper) {
+    this.userRepository = userRepository;
+    this.loginService = loginService;
+    this.loginLockout = loginLockout;
+    this.refreshTokenService = refreshTokenService;
+    this.passwordHasher = passwordHasher;
+    this.jwtHelper = jwtHelper;
+  }
+
+  @PostMapping("/signup")
+  public Mono<ResponseEntity<Void>> signup(@Valid @RequestBody SignupRequest request) {
+    String email = request.email();
+    return passwordHasher.encode(request.password())
+        .flatMap(hashedPassword -> userRepository.add(new User(request.name(), email, hashedPassword)))
+        .map(added -> {
+//          The unique index on email decides, so concurrent signups for the same email cannot both succeed
+          if (!added) {
+            throw new DuplicateException(String.format("User with the email address '%s' already exists.", email));
+          }
+          return ResponseEntity.status(HttpStatus.CREATED).<Void>build();
+        });
+  }
+
+  @PostMapping(value = "/login")
+  public Mono<ResponseEntity<LoginResponse>> login(@Valid @RequestBody LoginRequest request) {
+    String email = request.email();
+//    A locked account is rejected before its password is hashed, like in the servlet application
+    return loginLockout.check(email)
+        .then(userRepository.findByEmail(email))
+//        The same message as the servlet application, where the user lookup fails inside the AuthenticationManager
+        .switchIfEmpty(Mono.error(() -> new InternalAuthenticationServiceException("User does not exist, email: " + email)))
+        .flatMap(user -> passwordHasher.matches(request.password(), user.password())
+            .flatMap(matches -> {
+              if (!matches) {
+                loginLockout.recordFailure(email);
+                return loginService.addLoginAttempt(email, false)
+                    .then(Mono.error(() -> new BadCredentialsException("Bad credentials")));
+              }
+              loginLockout.recordSuccess(email);
+              String token = jwtHelper.generateToken(email);
+              return Mono.zip(refreshTokenService.issue(email), loginService.addLoginAttempt(email, true).thenReturn(true),
+                      rehash(user, request.password()))
+                  .map(issued -> ResponseEntity.ok(new LoginResponse(email, token, issued.getT1())));
+            }));
+  }
+
+  @GetMapping(value = "/loginAttempts")
+  public Mono<ResponseEntity<List<LoginAttemptResponse>>> loginAttempts(@RequestAttribute(JwtHelper.CLAIMS_ATTRIBUTE) Claims claims,
+      @RequestParam(defaultValue = "" + LoginAttemptRepository.RECENT_COUNT) int size,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(required = false) Boolean success) {
+    if (size < 1 || size > MAX_PAGE_SIZE) {
+      return Mono.error(new BadRequestException("size must be between 1 and " + MAX_PAGE_SIZE));
+    }
+    LoginAttemptCursor after = cursor == null ? null : LoginAttemptCursor.decode(cursor);
+    return loginService.findLoginAttempts(claims.getSubject(), new LoginAttemptFilter(from, to, success), after, size)
+        .map(page -> {
+          ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+          if (page.next() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.next().encode());
+          }
+          return response.body(page.loginAttempts().stream().map(LoginAttemptResponse::convertToDTO).toList());
+        });
+  }
+
+  // The UserDetailsPasswordService of the servlet application: a hash of another strength is replaced after a successful
+  // login, a failure only postpones that to the next one
+  private Mono<Boolean> rehash(User user, String password) {
+    if (!passwordHasher.upgradeEncoding(user.password())) {
+      return Mono.just(false);
+    }
+    return passwordHasher.encode(password)
+        .flatMap(hashedPassword -> userRepository.updatePassword(user.email(), user.password(), hashedPassword))
+        .onErrorReturn(false);
+  }
+}
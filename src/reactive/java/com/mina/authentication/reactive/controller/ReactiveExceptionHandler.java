@@ -0,0 +1,122 @@
+package com.mina.authentication.reactive.controller;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
+import static org.springframework.http.HttpStatus.FORBIDDEN;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+import static org.springframework.http.HttpStatus.UNAUTHORIZED;
+
+import com.mina.authentication.exceptions.AccessDeniedException;
+import com.mina.authentication.exceptions.BadRequestException;
+import com.mina.authentication.exceptions.DuplicateException;
+import com.mina.authentication.exceptions.NotFoundException;
+import com.mina.authentication.exceptions.ServiceUnavailableException;
+import com.mina.authentication.exceptions.TooManyRequestsException;
+import com.mina.authentication.helper.ErrorBodies;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
+
+/**
+ * The {@link com.mina.authentication.controller.RestExceptionHandler} of the reactive variant, with the same statuses and
+ * messages.
+ */
+@ControllerAdvice
+public class ReactiveExceptionHandler {
+
+  private final ErrorBodies errorBodies;
+
+  public ReactiveExceptionHandler(ErrorBodies errorBodies) {
+    this.errorBodies = errorBodies;
+  }
+
+  @ExceptionHandler(NotFoundException.class)
+  public ResponseEntity<byte[]> handleNotFoundException(NotFoundException e) {
+    return error(NOT_FOUND, e.getMessage());
+  }
+
+  @ExceptionHandler(WebExchangeBindException.class)
+  public ResponseEntity<byte[]> handleRequestNotValidException(WebExchangeBindException e) {
+    List<String> errors = new ArrayList<>();
+    e.getFieldErrors().forEach(error -> errors.add(error.getField() + ": " + error.getDefaultMessage()));
+    e.getGlobalErrors().forEach(error -> errors.add(error.getObjectName() + ": " + error.getDefaultMessage()));
+
+    String message = "Validation of request failed: %s".formatted(String.join(", ", errors));
+    return error(BAD_REQUEST, message);
+  }
+
+  @ExceptionHandler(ServerWebInputException.class)
+  public ResponseEntity<byte[]> handleServerWebInputException(ServerWebInputException e) {
+    if (e.getCause() instanceof TypeMismatchException mismatch && e.getMethodParameter() != null) {
+      return error(BAD_REQUEST, "Invalid value for %s: %s".formatted(e.getMethodParameter().getParameterName(), mismatch.getValue()));
+    }
+    return error(BAD_REQUEST, e.getReason());
+  }
+
+  @ExceptionHandler(BadRequestException.class)
+  public ResponseEntity<byte[]> handleBadRequestException(BadRequestException e) {
+    return error(BAD_REQUEST, e.getMessage());
+  }
+
+  @ExceptionHandler(BadCredentialsException.class)
+  public ResponseEntity<byte[]> handleBadCredentialsException() {
+    return error(UNAUTHORIZED, "Invalid username or password");
+  }
+
+  @ExceptionHandler(InternalAuthenticationServiceException.class)
+  public ResponseEntity<byte[]> handleInternalAuthenticationServiceException(InternalAuthenticationServiceException e) {
+    return error(UNAUTHORIZED, e.getMessage());
+  }
+
+  @ExceptionHandler(DuplicateException.class)
+  public ResponseEntity<byte[]> handleDuplicateException(DuplicateException e) {
+    return error(CONFLICT, e.getMessage());
+  }
+
+  @ExceptionHandler(AccessDeniedException.class)
+  public ResponseEntity<byte[]> handleAccessDeniedException(AccessDeniedException e) {
+    return error(FORBIDDEN, e.getMessage());
+  }
+
+  @ExceptionHandler(ServiceUnavailableException.class)
+  public ResponseEntity<byte[]> handleServiceUnavailableException(ServiceUnavailableException e) {
+    return error(SERVICE_UNAVAILABLE, e.getMessage(), e.getRetryAfter());
+  }
+
+  @ExceptionHandler(TooManyRequestsException.class)
+  public ResponseEntity<byte[]> handleTooManyRequestsException(TooManyRequestsException e) {
+    return error(TOO_MANY_REQUESTS, e.getMessage(), e.getRetryAfter());
+  }
+
+  @ExceptionHandler(Exception.class)
+  public ResponseEntity<byte[]> handleUnknownException(Exception e) {
+    return error(INTERNAL_SERVER_ERROR, e.getMessage());
+  }
+
+  private ResponseEntity<byte[]> error(HttpStatus status, String message) {
+    return ResponseEntity.status(status)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(errorBodies.of(status.value(), message));
+  }
+
+  private ResponseEntity<byte[]> error(HttpStatus status, String message, Duration retryAfter) {
+    return ResponseEntity.status(status)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())))
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(errorBodies.of(status.value(), message));
+  }
+}
@@ -0,0 +1,61 @@
+package com.mina.authentication.reactive.repository;
+
+import com.mina.authentication.domain.LoginAttempt;
+import com.mina.authentication.domain.LoginAttemptCursor;
+import com.mina.authentication.domain.LoginAttemptFilter;
+import com.mina.authentication.repository.LoginAttemptRepository;
+import java.time.LocalDateTime;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The login attempt reads and writes of {@link LoginAttemptRepository} on R2DBC, with the same page query.
+ */
+@Repository
+public class ReactiveLoginAttemptRepository {
+
+  private static final String INSERT = "INSERT INTO authentication.login_attempt (email, success, created_at) VALUES(:email, :success, :createdAt)";
+
+  private final DatabaseClient databaseClient;
+
+  public ReactiveLoginAttemptRepository(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  public Mono<Void> add(LoginAttempt loginAttempt) {
+    return databaseClient.sql(INSERT)
+        .bind("email", loginAttempt.email())
+        .bind("success", loginAttempt.success())
+        .bind("createdAt", loginAttempt.createdAt())
+        .then();
+  }
+
+  /**
+   * Newest first, starting after the cursor.
+   *
+   * @param after null for the first page
+   */
+  public Flux<LoginAttempt> findPage(String email, LoginAttemptFilter filter, LoginAttemptCursor after, int limit) {
+    DatabaseClient.GenericExecuteSpec statement = databaseClient.sql(LoginAttemptRepository.pageQuery(filter, after))
+        .bind("email", email)
+        .bind("limit", limit);
+    if (filter.success() != null) {
+      statement = statement.bind("success", filter.success());
+    }
+    if (filter.from() != null) {
+      statement = statement.bind("from", filter.from());
+    }
+    if (filter.to() != null) {
+      statement = statement.bind("to", filter.to());
+    }
+    if (after != null) {
+      statement = statement.bind("afterCreatedAt", after.createdAt()).bind("afterId", after.id());
+    }
+    return statement
+        .map(row -> new LoginAttempt(row.get("id", Long.class), row.get("email", String.class),
+            Boolean.TRUE.equals(row.get("success", Boolean.class)), row.get("created_at", LocalDateTime.class)))
+        .all();
+  }
+}
@@ -0,0 +1,50 @@
+package com.mina.authentication.reactive.repository;
+
+import com.mina.authentication.domain.LoginAttempt;
+import com.mina.authentication.domain.LoginStats;
+import com.mina.authentication.domain.LoginStats.Granularity;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The rollup increments of {@link com.mina.authentication.repository.LoginStatsRepository} on R2DBC, one attempt at a time.
+ */
+@Repository
+public class ReactiveLoginStatsRepository {
+
+  // Both rows in key order, like the batches of the servlet application, so concurrent upserts cannot deadlock
+  private static final String INCREMENT = "INSERT INTO authentication.%s AS s (email, bucket, successes, failures) VALUES(:first, :bucket, :successes, :failures), (:second, :bucket, :successes, :failures) ON CONFLICT (email, bucket) DO UPDATE SET successes = s.successes + EXCLUDED.successes, failures = s.failures + EXCLUDED.failures";
+
+  private final DatabaseClient databaseClient;
+
+  public ReactiveLoginStatsRepository(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  /**
+   * Adds the attempt to the minute and day rollups of its user and of all users.
+   */
+  public Mono<Void> increment(LoginAttempt loginAttempt) {
+    boolean userFirst = loginAttempt.email().compareTo(LoginStats.ALL_USERS) < 0;
+    String first = userFirst ? loginAttempt.email() : LoginStats.ALL_USERS;
+    String second = userFirst ? LoginStats.ALL_USERS : loginAttempt.email();
+    return Flux.fromArray(Granularity.values())
+        .concatMap(granularity -> databaseClient.sql(INCREMENT.formatted(table(granularity)))
+            .bind("first", first)
+            .bind("second", second)
+            .bind("bucket", granularity.truncate(loginAttempt.createdAt()))
+            .bind("successes", loginAttempt.success() ? 1L : 0L)
+            .bind("failures", loginAttempt.success() ? 0L : 1L)
+            .then())
+        .then();
+  }
+
+  private static String table(Granularity granularity) {
+    return switch (granularity) {
+      case MINUTE -> "login_stats_minute";
+      case DAY -> "login_stats_day";
+    };
+  }
+}
@@ -0,0 +1,32 @@
+package com.mina.authentication.reactive.repository;
+
+import java.time.Duration;
+import java.util.UUID;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Issues refresh tokens into the table of {@link com.mina.authentication.repository.RefreshTokenRepository}. They are rotated
+ * by the /refresh endpoint of the servlet application.
+ */
+@Repository
+public class ReactiveRefreshTokenRepository {
+
+  private static final String INSERT = "INSERT INTO authentication.refresh_token (token_hash, family_id, email, expires_at) VALUES(:tokenHash, :familyId, :email, now() + make_interval(secs => :ttlSeconds))";
+
+  private final DatabaseClient databaseClient;
+
+  public ReactiveRefreshTokenRepository(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  public Mono<Void> add(byte[] tokenHash, UUID familyId, String email, Duration ttl) {
+    return databaseClient.sql(INSERT)
+        .bind("tokenHash", tokenHash)
+        .bind("familyId", familyId)
+        .bind("email", email)
+        .bind("ttlSeconds", (double) ttl.toSeconds())
+        .then();
+  }
+}
@@ -0,0 +1,48 @@
+package com.mina.authentication.reactive.repository;
+
+import java.time.Duration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The revocation reads of {@link com.mina.authentication.repository.RevokedTokenRepository} on R2DBC. Tokens are revoked and
+ * cleaned up by the servlet application.
+ */
+@Repository
+public class ReactiveRevokedTokenRepository {
+
+  private static final String EXISTS = "SELECT EXISTS (SELECT 1 FROM authentication.revoked_token WHERE jti = :jti)";
+  private static final String FIND_ACTIVE = "SELECT jti FROM authentication.revoked_token WHERE expires_at > now()";
+  private static final String FIND_REVOKED_WITHIN = "SELECT jti FROM authentication.revoked_token WHERE revoked_at > now() - make_interval(secs => :seconds)";
+
+  private final DatabaseClient databaseClient;
+
+  public ReactiveRevokedTokenRepository(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  public Mono<Boolean> exists(String jti) {
+    return databaseClient.sql(EXISTS)
+        .bind("jti", jti)
+        .map(row -> Boolean.TRUE.equals(row.get(0, Boolean.class)))
+        .one();
+  }
+
+  public Flux<String> findActive() {
+    return databaseClient.sql(FIND_ACTIVE)
+        .map(row -> row.get("jti", String.class))
+        .all();
+  }
+
+  /**
+   * The tokens revoked within the given time, by the clock of the database.
+   */
+  public Flux<String> findRevokedWithin(Duration duration) {
+    return databaseClient.sql(FIND_REVOKED_WITHIN)
+        .bind("seconds", duration.toMillis() / 1000.0)
+        .map(row -> row.get("jti", String.class))
+        .all();
+  }
+}
@@ -0,0 +1,65 @@
+package com.mina.authentication.reactive.repository;
+
+import com.mina.authentication.domain.InvalidationEvent;
+import com.mina.authentication.domain.User;
+import com.mina.authentication.repository.UserRepository;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * The user reads and writes of {@link com.mina.authentication.repository.UserRepository} on R2DBC.
+ */
+@Repository
+public class ReactiveUserRepository {
+
+  // Published like the inserts of the servlet application, its nodes may have cached that the user does not exist
+  private static final String INSERT = "WITH inserted AS (INSERT INTO authentication.user (name, email, password) VALUES(:name, :email, :password) ON CONFLICT (email) DO NOTHING RETURNING email) "
+      + "SELECT inserted.email FROM inserted, " + UserRepository.notify(InvalidationEvent.Type.USER, "inserted.email");
+  private static final String FIND_BY_EMAIL = "SELECT name, email, password FROM authentication.user WHERE email = :email";
+  private static final String UPDATE_PASSWORD = "WITH updated AS (UPDATE authentication.user SET password = :password WHERE email = :email AND password = :previousPassword RETURNING email) "
+      + "SELECT updated.email FROM updated, " + UserRepository.notify(InvalidationEvent.Type.USER, "updated.email");
+
+  private final DatabaseClient databaseClient;
+
+  public ReactiveUserRepository(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  /**
+   * Adds the user in a single round trip.
+   *
+   * @return false if a user with the same email already exists
+   */
+  public Mono<Boolean> add(User user) {
+    return databaseClient.sql(INSERT)
+        .bind("name", user.name())
+        .bind("email", user.email())
+        .bind("password", user.password())
+        .fetch()
+        .all()
+        .hasElements();
+  }
+
+  /**
+   * Replaces the password hash, unless it was changed since it was read.
+   *
+   * @return false if the user does not exist anymore or its hash is not the previous one
+   */
+  public Mono<Boolean> updatePassword(String email, String previousPassword, String password) {
+    return databaseClient.sql(UPDATE_PASSWORD)
+        .bind("email", email)
+        .bind("previousPassword", previousPassword)
+        .bind("password", password)
+        .fetch()
+        .all()
+        .hasElements();
+  }
+
+  public Mono<User> findByEmail(String email) {
+    return databaseClient.sql(FIND_BY_EMAIL)
+        .bind("email", email)
+        .map(row -> new User(row.get("name", String.class), row.get("email", String.class), row.get("password", String.class)))
+        .one();
+  }
+}
@@ -0,0 +1,58 @@
+package com.mina.authentication.reactive.service;
+
+import com.mina.authentication.exceptions.TooManyRequestsException;
+import com.mina.authentication.service.LoginFailureWindows;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * The {@link com.mina.authentication.service.LoginLockout} of the reactive variant, with the same settings. A window is seeded
+ * without blocking, from attempts that are written before the login is answered.
+ */
+@Component
+public class ReactiveLoginLockout {
+
+  private final ReactiveLoginService loginService;
+  private final LoginFailureWindows windows;
+
+  @Autowired
+  public ReactiveLoginLockout(ReactiveLoginService loginService, MeterRegistry meterRegistry,
+      @Value("${authentication.login-lockout.max-failures:5}") int maxFailures,
+      @Value("${authentication.login-lockout.window:15m}") Duration window,
+      @Value("${authentication.login-lockout.buckets:15}") int buckets,
+      @Value("${authentication.login-lockout.maximum-size:100000}") long maximumSize) {
+    this(loginService, meterRegistry, Clock.systemUTC(), maxFailures, window, buckets, maximumSize);
+  }
+
+  ReactiveLoginLockout(ReactiveLoginService loginService, MeterRegistry meterRegistry, Clock clock, int maxFailures,
+      Duration window, int buckets, long maximumSize) {
+    this.loginService = loginService;
+    this.windows = new LoginFailureWindows(meterRegistry, clock, maxFailures, window, buckets, maximumSize);
+  }
+
+  /**
+   * Errors with {@link TooManyRequestsException} if the account has reached the maximum number of failures within the window.
+   */
+  public Mono<Void> check(String email) {
+    return Mono.defer(() -> {
+      Duration retryAfter = windows.retryAfter(email);
+      return retryAfter != null ? Mono.just(retryAfter)
+          : loginService.findLoginAttempts(email, windows.seedFilter(), null, windows.maxFailures())
+              .map(page -> windows.seed(email, page.loginAttempts()));
+    }).flatMap(retryAfter -> retryAfter.isZero() ? Mono.empty()
+        : Mono.error(new TooManyRequestsException("Too many failed logins, please retry later", retryAfter)));
+  }
+
+  public void recordFailure(String email) {
+    windows.recordFailure(email);
+  }
+
+  public void recordSuccess(String email) {
+    windows.recordSuccess(email);
+  }
+}
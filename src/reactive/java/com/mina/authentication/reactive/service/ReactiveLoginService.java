@@ -0,0 +1,59 @@
+package com.mina.authentication.reactive.service;
+
+import com.mina.authentication.domain.LoginAttempt;
+import com.mina.authentication.domain.LoginAttemptCursor;
+import com.mina.authentication.domain.LoginAttemptFilter;
+import com.mina.authentication.domain.LoginAttemptPage;
+import com.mina.authentication.reactive.repository.ReactiveLoginAttemptRepository;
+import com.mina.authentication.reactive.repository.ReactiveLoginStatsRepository;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * Login attempts of the reactive variant. An attempt is written before the login is answered, a non-blocking insert needs no
+ * write-behind queue to keep the event loop free.
+ */
+@Service
+public class ReactiveLoginService {
+
+  private final ReactiveLoginAttemptRepository repository;
+  private final ReactiveLoginStatsRepository statsRepository;
+  private final TransactionalOperator transactionalOperator;
+
+  public ReactiveLoginService(ReactiveLoginAttemptRepository repository, ReactiveLoginStatsRepository statsRepository,
+      TransactionalOperator transactionalOperator) {
+    this.repository = repository;
+    this.statsRepository = statsRepository;
+    this.transactionalOperator = transactionalOperator;
+  }
+
+  // The statistics are incremented in the same transaction, like the batches of the servlet application
+  public Mono<Void> addLoginAttempt(String email, boolean success) {
+    LoginAttempt loginAttempt = new LoginAttempt(null, email, success, LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+    return repository.add(loginAttempt)
+        .then(statsRepository.increment(loginAttempt))
+        .as(transactionalOperator::transactional);
+  }
+
+  /**
+   * A page of attempts, newest first.
+   *
+   * @param after null for the first page
+   */
+  public Mono<LoginAttemptPage> findLoginAttempts(String email, LoginAttemptFilter filter, LoginAttemptCursor after, int size) {
+    // One more than the page size tells whether there is a next page
+    return repository.findPage(email, filter, after, size + 1)
+        .collectList()
+        .map(loginAttempts -> {
+          if (loginAttempts.size() <= size) {
+            return new LoginAttemptPage(loginAttempts, null);
+          }
+          List<LoginAttempt> page = loginAttempts.subList(0, size);
+          return new LoginAttemptPage(page, LoginAttemptCursor.after(page.get(size - 1)));
+        });
+  }
+}
@@ -0,0 +1,38 @@
+package com.mina.authentication.reactive.service;
+
+import com.mina.authentication.reactive.repository.ReactiveRefreshTokenRepository;
+import com.mina.authentication.service.RefreshTokenService;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Starts refresh token families on login, the tokens are the same as those of {@link RefreshTokenService}.
+ */
+@Service
+public class ReactiveRefreshTokenService {
+
+  private static final int TOKEN_BYTES = 32;
+
+  private final ReactiveRefreshTokenRepository repository;
+  private final Duration ttl;
+  private final SecureRandom random = new SecureRandom();
+
+  public ReactiveRefreshTokenService(ReactiveRefreshTokenRepository repository,
+      @Value("${authentication.refresh-tokens.ttl:14d}") Duration ttl) {
+    this.repository = repository;
+    this.ttl = ttl;
+  }
+
+  public Mono<String> issue(String email) {
+    byte[] bytes = new byte[TOKEN_BYTES];
+    random.nextBytes(bytes);
+    String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    return repository.add(RefreshTokenService.hash(refreshToken), UUID.randomUUID(), email, ttl)
+        .thenReturn(refreshToken);
+  }
+}
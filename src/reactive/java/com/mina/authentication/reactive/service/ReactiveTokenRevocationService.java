@@ -0,0 +1,99 @@
+package com.mina.authentication.reactive.service;
+
+import com.mina.authentication.config.AuthMetrics;
+import com.mina.authentication.helper.BloomFilter;
+import com.mina.authentication.reactive.repository.ReactiveRevokedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * The revocation checks of {@link com.mina.authentication.service.TokenRevocationService}: a Bloom filter answers almost every
+ * check without I/O, only the tokens it might contain are looked up. The filter is built and refreshed on the scheduler's
+ * thread, where waiting for the database does not hold up any request.
+ */
+@Service
+public class ReactiveTokenRevocationService {
+
+  private static final Logger log = LoggerFactory.getLogger(ReactiveTokenRevocationService.class);
+  // revoked_at is the start of the inserting transaction, which may commit a while later
+  private static final Duration COMMIT_GRACE = Duration.ofMinutes(1);
+
+  private final ReactiveRevokedTokenRepository repository;
+  private final long expectedInsertions;
+  private final double falsePositiveRate;
+  private final Counter filterMisses;
+  private final Counter falsePositives;
+  private final Counter revokedHits;
+
+  private volatile BloomFilter filter;
+  private long lastRefreshNanos; // guarded by this
+
+  public ReactiveTokenRevocationService(ReactiveRevokedTokenRepository repository, AuthMetrics metrics,
+      @Value("${authentication.token-revocation.expected-insertions:100000}") long expectedInsertions,
+      @Value("${authentication.token-revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+    this.repository = repository;
+    this.expectedInsertions = expectedInsertions;
+    this.falsePositiveRate = falsePositiveRate;
+
+    MeterRegistry meterRegistry = metrics.registry();
+    this.filterMisses = checks(meterRegistry, "not_revoked");
+    this.falsePositives = checks(meterRegistry, "false_positive");
+    this.revokedHits = checks(meterRegistry, "revoked");
+    rebuild();
+  }
+
+  /**
+   * @param jti null for tokens issued before tokens had an id, they cannot be revoked
+   */
+  public Mono<Boolean> isRevoked(String jti) {
+    if (jti == null || !filter.mightContain(jti)) {
+      filterMisses.increment();
+      return Mono.just(false);
+    }
+    return repository.exists(jti)
+        .doOnNext(revoked -> (revoked ? revokedHits : falsePositives).increment());
+  }
+
+  @Scheduled(fixedDelayString = "${authentication.token-revocation.refresh-interval:PT5S}")
+  public synchronized void refresh() {
+    long startedAt = System.nanoTime();
+    try {
+      Duration since = Duration.ofNanos(startedAt - lastRefreshNanos).plus(COMMIT_GRACE);
+      repository.findRevokedWithin(since).doOnNext(filter::add).blockLast();
+      lastRefreshNanos = startedAt;
+    } catch (RuntimeException e) {
+      log.error("Could not read the token revocations, retrying in the next refresh", e);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${authentication.token-revocation.rebuild-interval:PT1H}",
+      initialDelayString = "${authentication.token-revocation.rebuild-interval:PT1H}")
+  public synchronized void rebuild() {
+    long startedAt = System.nanoTime();
+    BloomFilter rebuilt = new BloomFilter(expectedInsertions, falsePositiveRate);
+    List<String> active = repository.findActive().collectList().block();
+    active.forEach(rebuilt::add);
+    if (active.size() > expectedInsertions) {
+      log.warn("{} revoked tokens exceed the expected {}, raise authentication.token-revocation.expected-insertions",
+          active.size(), expectedInsertions);
+    }
+    filter = rebuilt;
+    lastRefreshNanos = startedAt;
+    refresh(); // revoked by other nodes while the filter was built
+  }
+
+  private static Counter checks(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("token.revocation.checks")
+        .description("Revocation checks of authenticated requests, only false_positive and revoked ones query the database")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+}
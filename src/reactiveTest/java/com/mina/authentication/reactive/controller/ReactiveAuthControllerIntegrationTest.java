@@ -0,0 +1,14 @@
+package com.mina.authentication.reactive.controller;
+
+import com.mina.authentication.controller.AuthControllerIntegrationTest;
+import com.mina.authentication.reactive.ReactiveMain;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * The tests of the servlet application, run against the reactive variant.
+ */
+@SpringBootTest(classes = ReactiveMain.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "spring.main.web-application-type=reactive")
+public class ReactiveAuthControllerIntegrationTest extends AuthControllerIntegrationTest {
+
+}
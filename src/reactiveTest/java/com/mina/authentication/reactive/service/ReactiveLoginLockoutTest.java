@@ -0,0 +1,52 @@
+package com.mina.authentication.reactive.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mina.authentication.domain.LoginAttempt;
+import com.mina.authentication.domain.LoginAttemptPage;
+import com.mina.authentication.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+public class ReactiveLoginLockoutTest {
+
+  private final ReactiveLoginService loginService = mock(ReactiveLoginService.class);
+  private final Instant now = Instant.parse("2026-10-18T10:00:00Z");
+  private final ReactiveLoginLockout lockout =
+      new ReactiveLoginLockout(loginService, new SimpleMeterRegistry(), Clock.fixed(now, ZoneId.systemDefault()), 3,
+          Duration.ofMinutes(15), 15, 1000);
+
+  @Test
+  public void shouldSeedOnce_ThenLockAccount_WhenMaxFailuresAreReached() {
+    LocalDateTime current = LocalDateTime.ofInstant(now, ZoneId.systemDefault());
+    when(loginService.findLoginAttempts(eq("mina@gmail.com"), any(), isNull(), eq(3))).thenReturn(Mono.just(new LoginAttemptPage(
+        List.of(new LoginAttempt(null, "mina@gmail.com", false, current.minusMinutes(1))), null)));
+
+    lockout.check("mina@gmail.com").block();
+    lockout.recordFailure("mina@gmail.com");
+    lockout.check("mina@gmail.com").block();
+    lockout.recordFailure("mina@gmail.com");
+
+    assertThatThrownBy(() -> lockout.check("mina@gmail.com").block())
+        .isInstanceOfSatisfying(TooManyRequestsException.class, e -> assertThat(e.getRetryAfter()).isPositive());
+    verify(loginService, times(1)).findLoginAttempts(any(), any(), any(), eq(3));
+
+    lockout.recordSuccess("mina@gmail.com");
+    lockout.check("mina@gmail.com").block();
+  }
+}
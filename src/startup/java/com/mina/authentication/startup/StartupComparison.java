@@ -0,0 +1,250 @@
+package com.mina.authentication.startup;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Builds the fast-startup layout of the service and compares its startup with the plain executable jar:
+ * <ol>
+ *   <li>the executable jar is extracted into an application jar plus {@code lib/}, CDS only archives classes loaded from jars
+ *   listed on the class path, not from the nested jars of the executable jar,</li>
+ *   <li>a training run starts the AOT processed application up to the refreshed context and dumps the loaded classes into
+ *   {@code application.jsa},</li>
+ *   <li>every variant is started {@code startup.runs} times against an embedded Postgres, the median time until the
+ *   "Started" log line and the resident set size at that point are printed and written to {@code startup-comparison.csv}.</li>
+ * </ol>
+ */
+public class StartupComparison {
+
+  private static final Pattern STARTED = Pattern.compile("Started \\S+ in ([\\d.]+) seconds \\(process running for ([\\d.]+)\\)");
+  private static final String ARCHIVE = "application.jsa";
+  private static final String APPLICATION = "application.jar";
+
+  private final StartupSettings settings;
+  private final List<String> applicationArgs;
+  private final String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+  StartupComparison(StartupSettings settings, String jdbcUrl) {
+    this.settings = settings;
+    // passed as command line arguments, they have to override application.yml
+    this.applicationArgs = List.of(
+        "--server.port=0",
+        "--management.server.port=0",
+        "--spring.main.banner-mode=off",
+        "--spring.datasource.url=" + jdbcUrl,
+        "--spring.datasource.username=" + settings.username(),
+        "--spring.datasource.password=" + settings.password(),
+        "--logging.level.root=WARN",
+        "--logging.level.com.mina.authentication.Main=INFO");
+  }
+
+  public static void main(String[] args) throws Exception {
+    StartupSettings settings = StartupSettings.fromSystemProperties();
+    try (EmbeddedPostgres postgres = settings.jdbcUrl() == null ? EmbeddedPostgres.start() : null) {
+      String jdbcUrl = postgres != null ? postgres.getJdbcUrl("postgres", "postgres") : settings.jdbcUrl();
+      new StartupComparison(settings, jdbcUrl).run();
+    }
+  }
+
+  void run() throws Exception {
+    Path output = settings.output().toAbsolutePath();
+    extract(settings.jar(), output);
+    train(output);
+
+    List<Variant> variants = new ArrayList<>(List.of(
+        new Variant("jar", List.of(java, "-jar", settings.jar().toAbsolutePath().toString())),
+        new Variant("aot", List.of(java, "-Dspring.aot.enabled=true", "-jar", APPLICATION)),
+        new Variant("aot+cds", List.of(java, "-XX:SharedArchiveFile=" + ARCHIVE, "-Dspring.aot.enabled=true", "-jar", APPLICATION))));
+    if (Files.isExecutable(settings.nativeImage())) {
+      variants.add(new Variant("native", List.of(settings.nativeImage().toAbsolutePath().toString())));
+    }
+
+    List<Result> results = new ArrayList<>();
+    for (Variant variant : variants) {
+      System.out.printf("Starting %s %d times%n", variant.name(), settings.runs());
+      List<Start> starts = new ArrayList<>();
+      for (int i = 0; i < settings.runs(); i++) {
+        starts.add(start(variant, output));
+      }
+      results.add(Result.median(variant.name(), starts));
+    }
+    report(results, output);
+  }
+
+  /**
+   * Writes the application classes into {@code application.jar}, with the dependencies in {@code lib/} on its manifest class path
+   * in the order of the executable jar's class path index.
+   */
+  private static void extract(Path executableJar, Path output) throws IOException {
+    Path lib = output.resolve("lib");
+    Files.createDirectories(lib);
+    try (JarFile jar = new JarFile(executableJar.toFile())) {
+      List<String> classPath = new ArrayList<>();
+      JarEntry index = jar.getJarEntry("BOOT-INF/classpath.idx");
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(jar.getInputStream(index), StandardCharsets.UTF_8))) {
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+          String entry = line.substring(line.indexOf('"') + 1, line.lastIndexOf('"'));
+          Path target = lib.resolve(entry.substring(entry.lastIndexOf('/') + 1));
+          try (InputStream in = jar.getInputStream(jar.getJarEntry(entry))) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+          }
+          classPath.add("lib/" + target.getFileName());
+        }
+      }
+
+      Manifest manifest = new Manifest();
+      manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+      manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, jar.getManifest().getMainAttributes().getValue("Start-Class"));
+      manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, String.join(" ", classPath));
+      try (JarOutputStream application = new JarOutputStream(Files.newOutputStream(output.resolve(APPLICATION)), manifest)) {
+        for (JarEntry entry : jar.stream().filter(e -> e.getName().startsWith("BOOT-INF/classes/")).toList()) {
+          String name = entry.getName().substring("BOOT-INF/classes/".length());
+          if (name.isEmpty()) {
+            continue;
+          }
+          application.putNextEntry(new JarEntry(name));
+          if (!entry.isDirectory()) {
+            try (InputStream in = jar.getInputStream(entry)) {
+              in.transferTo(application);
+            }
+          }
+          application.closeEntry();
+        }
+      }
+    }
+  }
+
+  /**
+   * Starts the application until its context is refreshed, the classes loaded up to then are dumped into the CDS archive when the
+   * JVM exits.
+   */
+  private void train(Path output) throws IOException, InterruptedException {
+    Files.deleteIfExists(output.resolve(ARCHIVE));
+    System.out.println("Training the CDS archive");
+    List<String> command = new ArrayList<>(List.of(java, "-XX:ArchiveClassesAtExit=" + ARCHIVE, "-Dspring.aot.enabled=true",
+        "-Dspring.context.exit=onRefresh", "-jar", APPLICATION));
+    command.addAll(applicationArgs);
+    Process process = new ProcessBuilder(command).directory(output.toFile()).redirectErrorStream(true).start();
+    Deque<String> lastLines = tail(process.getInputStream(), null);
+    if (process.waitFor() != 0 || !Files.exists(output.resolve(ARCHIVE))) {
+      throw new IllegalStateException("Training run failed:\n" + String.join("\n", lastLines));
+    }
+  }
+
+  private Start start(Variant variant, Path output) throws IOException, InterruptedException {
+    List<String> command = new ArrayList<>(variant.command());
+    command.addAll(applicationArgs);
+    long startedAt = System.nanoTime();
+    Process process = new ProcessBuilder(command).directory(output.toFile()).redirectErrorStream(true).start();
+    try {
+      Matcher[] started = new Matcher[1];
+      Deque<String> lastLines = tail(process.getInputStream(), line -> {
+        Matcher matcher = STARTED.matcher(line);
+        if (matcher.find()) {
+          started[0] = matcher;
+          return true;
+        }
+        return false;
+      });
+      if (started[0] == null) {
+        throw new IllegalStateException(variant.name() + " did not start:\n" + String.join("\n", lastLines));
+      }
+      long wallMillis = (System.nanoTime() - startedAt) / 1_000_000;
+      return new Start(Double.parseDouble(started[0].group(2)), wallMillis, residentKilobytes(process.pid()));
+    } finally {
+      process.destroy();
+      process.waitFor();
+    }
+  }
+
+  /**
+   * Reads the output until the predicate matches or the process exits, keeping the last lines for error messages.
+   */
+  private static Deque<String> tail(InputStream output, Predicate<String> until) throws IOException {
+    Deque<String> lastLines = new ArrayDeque<>();
+    BufferedReader reader = new BufferedReader(new InputStreamReader(output, StandardCharsets.UTF_8));
+    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+      if (lastLines.size() == 30) {
+        lastLines.removeFirst();
+      }
+      lastLines.addLast(line);
+      if (until != null && until.test(line)) {
+        break;
+      }
+    }
+    return lastLines;
+  }
+
+  private static long residentKilobytes(long pid) throws IOException, InterruptedException {
+    Path status = Path.of("/proc", Long.toString(pid), "status");
+    if (Files.exists(status)) {
+      try (Stream<String> lines = Files.lines(status)) {
+        return lines.filter(line -> line.startsWith("VmRSS:"))
+            .map(line -> Long.parseLong(line.replaceAll("\\D", "")))
+            .findFirst()
+            .orElse(-1L);
+      }
+    }
+    // no procfs, e.g. on macOS
+    Process ps = new ProcessBuilder("ps", "-o", "rss=", "-p", Long.toString(pid)).start();
+    String rss = new String(ps.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+    ps.waitFor();
+    return rss.isEmpty() ? -1 : Long.parseLong(rss);
+  }
+
+  private static void report(List<Result> results, Path output) throws IOException {
+    List<String> csv = new ArrayList<>(List.of("variant,started_s,wall_ms,rss_mb"));
+    System.out.printf("%n%-10s %12s %10s %10s%n", "variant", "started s", "wall ms", "RSS MB");
+    for (Result result : results) {
+      System.out.printf("%-10s %12.3f %10d %10d%n", result.name(), result.startedSeconds(), result.wallMillis(), result.rssMegabytes());
+      csv.add("%s,%.3f,%d,%d".formatted(result.name(), result.startedSeconds(), result.wallMillis(), result.rssMegabytes()));
+    }
+    Files.write(output.resolve("startup-comparison.csv"), csv);
+    System.out.printf("%nRun the fast-startup build from %s with: java -XX:SharedArchiveFile=%s -Dspring.aot.enabled=true -jar %s%n",
+        output, ARCHIVE, APPLICATION);
+  }
+
+  private record Variant(String name, List<String> command) {
+
+  }
+
+  /**
+   * @param startedSeconds process uptime when the application reported it has started, as logged by Spring Boot
+   * @param wallMillis time from launching the process until the log line was read, including the JVM startup
+   */
+  private record Start(double startedSeconds, long wallMillis, long rssKilobytes) {
+
+  }
+
+  private record Result(String name, double startedSeconds, long wallMillis, long rssMegabytes) {
+
+    static Result median(String name, List<Start> starts) {
+      int middle = starts.size() / 2;
+      return new Result(name,
+          starts.stream().map(Start::startedSeconds).sorted().toList().get(middle),
+          starts.stream().map(Start::wallMillis).sorted().toList().get(middle),
+          starts.stream().map(Start::rssKilobytes).sorted(Comparator.naturalOrder()).toList().get(middle) / 1024);
+    }
+  }
+}
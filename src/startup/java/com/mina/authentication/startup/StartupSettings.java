@@ -0,0 +1,26 @@
+package com.mina.authentication.startup;
+
+import java.nio.file.Path;
+
+/**
+ * Settings of a startup comparison, read from {@code startup.*} system properties.
+ *
+ * @param jar the executable jar built by the spring-boot-maven-plugin
+ * @param nativeImage executable of the native build, compared too when it exists
+ * @param runs number of starts per variant, the median is reported
+ * @param jdbcUrl database to run against instead of the embedded Postgres, e.g. when running as root where Postgres refuses to start
+ * @param output directory the extracted application, the CDS archive and the comparison are written to
+ */
+record StartupSettings(Path jar, Path nativeImage, int runs, String jdbcUrl, String username, String password, Path output) {
+
+  static StartupSettings fromSystemProperties() {
+    return new StartupSettings(
+        Path.of(System.getProperty("startup.jar")),
+        Path.of(System.getProperty("startup.native", "target/authentication")),
+        Integer.getInteger("startup.runs", 3),
+        System.getProperty("startup.jdbc-url"),
+        System.getProperty("startup.username", "postgres"),
+        System.getProperty("startup.password", "postgres"),
+        Path.of(System.getProperty("startup.output", "target/fast-startup")));
+  }
+}
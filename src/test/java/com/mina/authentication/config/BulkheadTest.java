@@ -0,0 +1,53 @@
+package com.mina.authentication.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mina.authentication.exceptions.BulkheadFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+public class BulkheadTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final Bulkhead bulkhead = new Bulkhead("auth_reads", 1, Duration.ofMillis(50), Duration.ofSeconds(1), meterRegistry);
+
+  @Test
+  public void shouldReject_WhenNoPermitIsFreeWithinMaxWait() throws Exception {
+    CountDownLatch holding = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Thread holder = Thread.ofVirtual().start(() -> bulkhead.run(() -> {
+      holding.countDown();
+      await(release);
+    }));
+    holding.await();
+
+    assertThatThrownBy(() -> bulkhead.call(() -> "rejected"))
+        .isInstanceOf(BulkheadFullException.class)
+        .hasFieldOrPropertyWithValue("bulkhead", "auth_reads");
+    assertThat(meterRegistry.get("db.bulkhead.rejected").counter().count()).isEqualTo(1);
+
+    release.countDown();
+    holder.join();
+    assertThat(bulkhead.call(() -> "admitted")).isEqualTo("admitted");
+  }
+
+  @Test
+  public void shouldReleasePermit_WhenWorkFails() {
+    assertThatThrownBy(() -> bulkhead.run(() -> {
+      throw new IllegalStateException("failed");
+    })).isInstanceOf(IllegalStateException.class);
+
+    assertThat(bulkhead.call(() -> "admitted")).isEqualTo("admitted");
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package com.mina.authentication.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+public class CalibratedPasswordEncoderTest {
+
+  private static final String EMAIL = "mina@gmail.com";
+
+  @Test
+  public void shouldCalibrateWithinBounds() {
+    assertThat(CalibratedPasswordEncoder.calibrate(Duration.ZERO, 4, 6)).isEqualTo(4);
+    assertThat(CalibratedPasswordEncoder.calibrate(Duration.ofMinutes(1), 4, 6)).isEqualTo(6);
+  }
+
+  @Test
+  public void shouldUpgradeHashesOfOtherStrength() {
+    CalibratedPasswordEncoder encoder = new CalibratedPasswordEncoder(5, 0);
+    CalibratedPasswordEncoder tolerant = new CalibratedPasswordEncoder(5, 1);
+
+    assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password"))).isTrue();
+    assertThat(encoder.upgradeEncoding(encoder.encode("password"))).isFalse();
+    assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password"))).isTrue();
+    assertThat(tolerant.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password"))).isFalse();
+    assertThat(tolerant.upgradeEncoding(new BCryptPasswordEncoder(7).encode("password"))).isTrue();
+    assertThat(encoder.upgradeEncoding("{noop}password")).isFalse();
+  }
+
+  @Test
+  public void shouldReadStrengthOfBcryptHashes() {
+    assertThat(CalibratedPasswordEncoder.strength("$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy")).isEqualTo(10);
+    assertThat(CalibratedPasswordEncoder.strength("$2b$04$abc")).isEqualTo(4);
+    assertThat(CalibratedPasswordEncoder.strength("{noop}password")).isZero();
+    assertThat(CalibratedPasswordEncoder.strength(null)).isZero();
+  }
+
+  @Test
+  public void shouldRehashOnLogin_WhenStrengthDiffers() {
+    UserDetails user = User.builder().username(EMAIL).password(new BCryptPasswordEncoder(6).encode("password")).build();
+    UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    UserDetailsPasswordService passwordService = mock(UserDetailsPasswordService.class);
+    when(userDetailsService.loadUserByUsername(EMAIL)).thenReturn(user);
+    when(passwordService.updatePassword(eq(user), any())).thenReturn(user);
+    PasswordAuthenticationProvider provider = provider(userDetailsService, passwordService, new CalibratedPasswordEncoder(4, 0));
+
+    provider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "password"));
+
+    ArgumentCaptor<String> rehashed = ArgumentCaptor.forClass(String.class);
+    verify(passwordService).updatePassword(eq(user), rehashed.capture());
+    assertThat(CalibratedPasswordEncoder.strength(rehashed.getValue())).isEqualTo(4);
+    assertThat(new BCryptPasswordEncoder().matches("password", rehashed.getValue())).isTrue();
+  }
+
+  @Test
+  public void shouldNotRehashOnLogin_WhenStrengthMatches() {
+    CalibratedPasswordEncoder encoder = new CalibratedPasswordEncoder(4, 0);
+    UserDetails user = User.builder().username(EMAIL).password(encoder.encode("password")).build();
+    UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    UserDetailsPasswordService passwordService = mock(UserDetailsPasswordService.class);
+    when(userDetailsService.loadUserByUsername(EMAIL)).thenReturn(user);
+    PasswordAuthenticationProvider provider = provider(userDetailsService, passwordService, encoder);
+
+    provider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "password"));
+
+    verify(passwordService, never()).updatePassword(any(), any());
+  }
+
+  private static PasswordAuthenticationProvider provider(UserDetailsService userDetailsService,
+      UserDetailsPasswordService passwordService, CalibratedPasswordEncoder encoder) {
+    PasswordAuthenticationProvider provider = new PasswordAuthenticationProvider();
+    provider.setUserDetailsService(userDetailsService);
+    provider.setUserDetailsPasswordService(passwordService);
+    provider.setPasswordEncoder(encoder);
+    return provider;
+  }
+}
@@ -0,0 +1,58 @@
+package com.mina.authentication.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mina.authentication.domain.LoginAttempt;
+import io.jsonwebtoken.Jwts;
+import io.swagger.v3.oas.models.OpenAPI;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.core.io.support.SpringFactoriesLoader;
+
+public class NativeHintsTest {
+
+  private final RuntimeHints hints = new RuntimeHints();
+
+  @Test
+  public void shouldRegisterRowConstructorsAndChangelogs() {
+    new NativeHints().registerHints(hints, getClass().getClassLoader());
+
+    assertThat(RuntimeHintsPredicates.reflection().onType(LoginAttempt.class)).accepts(hints);
+    assertThat(RuntimeHintsPredicates.resource().forResource("db/changelogs/1_tables.xml")).accepts(hints);
+  }
+
+  // Breaks when a jjwt upgrade renames one of the implementations loaded by name
+  @Test
+  public void shouldOnlyRegisterExistingJjwtImplementations() {
+    new NativeHints().registerHints(hints, getClass().getClassLoader());
+
+    hints.reflection().typeHints()
+        .map(hint -> hint.getType().getName())
+        .filter(name -> name.startsWith("io.jsonwebtoken."))
+        .forEach(name -> assertThat(classExists(name)).as(name).isTrue());
+    assertThat(RuntimeHintsPredicates.reflection().onType(TypeReference.of("io.jsonwebtoken.impl.DefaultJwtBuilder")))
+        .accepts(hints);
+  }
+
+  // NativeHints relies on springdoc's own registrar, breaks when an upgrade drops it
+  @Test
+  public void shouldRegisterOpenApiModel_ThroughSpringdocHints() {
+    SpringFactoriesLoader.forResourceLocation("META-INF/spring/aot.factories")
+        .load(RuntimeHintsRegistrar.class)
+        .forEach(registrar -> registrar.registerHints(hints, getClass().getClassLoader()));
+
+    assertThat(RuntimeHintsPredicates.reflection().onType(OpenAPI.class)).accepts(hints);
+  }
+
+  private static boolean classExists(String name) {
+    try {
+      Class.forName(name, false, Jwts.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package com.mina.authentication.helper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class BloomFilterTest {
+
+  @Test
+  public void shouldContainEveryAddedValue() {
+    BloomFilter filter = new BloomFilter(1_000, 0.01);
+    var values = IntStream.range(0, 1_000).mapToObj(i -> UUID.randomUUID().toString()).toList();
+
+    values.forEach(filter::add);
+
+    assertThat(values).allMatch(filter::mightContain);
+  }
+
+  @Test
+  public void shouldKeepFalsePositivesNearTheConfiguredRate() {
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+    IntStream.range(0, 10_000).forEach(i -> filter.add(UUID.randomUUID().toString()));
+
+    long falsePositives = IntStream.range(0, 100_000)
+        .filter(i -> filter.mightContain(UUID.randomUUID().toString()))
+        .count();
+
+    assertThat(falsePositives).isLessThan(2_000); // 1% expected
+  }
+}
@@ -0,0 +1,82 @@
+package com.mina.authentication.helper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.mina.authentication.config.JwtProperties;
+import com.mina.authentication.exceptions.AccessDeniedException;
+import io.jsonwebtoken.Claims;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+public class JwtHelperTest {
+
+  private static final JwtProperties PROPERTIES = new JwtProperties(Duration.ofMinutes(60), 10_000, null, List.of());
+
+  private final JwtHelper jwtHelper = new JwtHelper(JwtKeys.ephemeral(), PROPERTIES);
+
+  @Test
+  public void shouldVerifyTokenAndReuseVerifiedClaims() {
+    String token = jwtHelper.generateToken("mina@gmail.com");
+
+    Claims claims = jwtHelper.verify(token);
+
+    assertThat(claims.getSubject()).isEqualTo("mina@gmail.com");
+    assertThat(claims.getId()).isNotBlank();
+    assertThat(jwtHelper.verify(token)).isSameAs(claims);
+  }
+
+  @Test
+  public void shouldValidateClaimsAgainstUserDetails() {
+    Claims claims = jwtHelper.verify(jwtHelper.generateToken("nick@gmail.com"));
+    UserDetails nick = User.builder().username("nick@gmail.com").password("hash").build();
+    UserDetails john = User.builder().username("john@gmail.com").password("hash").build();
+
+    assertThat(jwtHelper.validateToken(claims, nick)).isTrue();
+    assertThat(jwtHelper.validateToken(claims, john)).isFalse();
+  }
+
+  @Test
+  public void shouldDenyAccess_WhenSignatureIsInvalid() {
+    String token = jwtHelper.generateToken("sandra@gmail.com");
+    String tampered = token.substring(0, token.length() - 4) + (token.endsWith("AAAA") ? "BBBB" : "AAAA");
+
+    Throwable rejection = catchThrowable(() -> jwtHelper.verify(tampered));
+
+    assertThat(rejection).isInstanceOf(AccessDeniedException.class);
+    assertThat(catchThrowable(() -> jwtHelper.verify(tampered))).isSameAs(rejection);
+  }
+
+  @Test
+  public void shouldDenyAccess_WhenTokenIsMalformed() {
+    String token = jwtHelper.generateToken("sandra@gmail.com");
+
+    assertThat(JwtHelper.isWellFormed(token)).isTrue();
+    assertThat(JwtHelper.isWellFormed("not-a-jwt")).isFalse();
+    assertThat(JwtHelper.isWellFormed("a..c")).isFalse();
+    assertThat(JwtHelper.isWellFormed(token + "=")).isFalse();
+    assertThatThrownBy(() -> jwtHelper.verify("e30.e30.e30")).isInstanceOf(AccessDeniedException.class);
+  }
+
+  @Test
+  public void shouldVerifyTokensOfRetiringKey_WhenKeyIsRotated() throws Exception {
+    KeyPair retiring = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+    KeyPair active = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+    JwtHelper beforeRotation = new JwtHelper(new JwtKeys("2026-09", retiring.getPrivate(),
+        Map.of("2026-09", retiring.getPublic())), PROPERTIES);
+    JwtHelper afterRotation = new JwtHelper(new JwtKeys("2026-10", active.getPrivate(),
+        Map.of("2026-09", retiring.getPublic(), "2026-10", active.getPublic())), PROPERTIES);
+
+    assertThat(afterRotation.extractUsername(beforeRotation.generateToken("mina@gmail.com"))).isEqualTo("mina@gmail.com");
+    assertThat(afterRotation.extractUsername(afterRotation.generateToken("nick@gmail.com"))).isEqualTo("nick@gmail.com");
+    assertThatThrownBy(() -> beforeRotation.verify(afterRotation.generateToken("nick@gmail.com")))
+        .isInstanceOf(AccessDeniedException.class);
+  }
+}
@@ -0,0 +1,55 @@
+package com.mina.authentication.helper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mina.authentication.config.JwtProperties;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+public class JwtKeysTest {
+
+  @Test
+  public void shouldLoadP256Key() throws Exception {
+    KeyPair keyPair = ecKeyPair("secp256r1");
+
+    JwtKeys keys = JwtKeys.load(properties(keyPair));
+
+    assertThat(keys.verificationKey("k1")).isEqualTo(keyPair.getPublic());
+  }
+
+  // jjwt would sign with ES384, while the JWKS publishes the key as ES256
+  @Test
+  public void shouldRejectEcKeyOnOtherCurve() throws Exception {
+    KeyPair keyPair = ecKeyPair("secp384r1");
+
+    assertThatThrownBy(() -> JwtKeys.load(properties(keyPair)))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("P-256");
+  }
+
+  private static KeyPair ecKeyPair(String curve) throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+    generator.initialize(new ECGenParameterSpec(curve));
+    return generator.generateKeyPair();
+  }
+
+  private static JwtProperties properties(KeyPair keyPair) {
+    JwtProperties.Key key = new JwtProperties.Key("k1", pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()),
+        pem("PUBLIC KEY", keyPair.getPublic().getEncoded()));
+    return new JwtProperties(Duration.ofMinutes(60), 10_000, "k1", List.of(key));
+  }
+
+  private static Resource pem(String type, byte[] encoded) {
+    String pem = "-----BEGIN " + type + "-----\n" + Base64.getMimeEncoder().encodeToString(encoded) + "\n-----END " + type + "-----\n";
+    return new ByteArrayResource(pem.getBytes(StandardCharsets.US_ASCII));
+  }
+}
@@ -0,0 +1,85 @@
+package com.mina.authentication.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.mina.authentication.config.AuthMetrics;
+import com.mina.authentication.config.BoundedPasswordEncoder;
+import com.mina.authentication.config.JwtProperties;
+import com.mina.authentication.helper.JwtHelper;
+import com.mina.authentication.helper.JwtKeys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+public class AuthenticationEventsTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void shouldRecordTokenAndPasswordEvents_WithShippedSettings() throws Exception {
+    JwtHelper jwtHelper = new JwtHelper(JwtKeys.ephemeral(), new JwtProperties(Duration.ofMinutes(60), 100, null, List.of()));
+    AuthMetrics metrics = new AuthMetrics(new SimpleMeterRegistry());
+    Path file = directory.resolve("authentication.jfr");
+
+    try (Recording recording = new Recording(settings("0 ms"));
+        BoundedPasswordEncoder passwordEncoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 10,
+            Duration.ofSeconds(5), Duration.ofSeconds(1), metrics)) {
+      recording.start();
+      String token = jwtHelper.generateToken("mina@gmail.com");
+      jwtHelper.verify(token);
+      jwtHelper.verify(token);
+      catchThrowable(() -> jwtHelper.verify("e30.e30.e30"));
+      assertThat(passwordEncoder.matches("password", passwordEncoder.encode("password"))).isTrue();
+      metrics.operation("login", () -> {});
+      metrics.operation("signup", () -> LockSupport.parkNanos(Duration.ofMillis(30).toNanos()));
+      recording.stop();
+      recording.dump(file);
+    }
+
+    List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+    assertThat(events(events, "com.mina.authentication.Token"))
+        .extracting(event -> event.getString("operation") + ":" + event.getBoolean("cached") + ":" + event.getString("outcome"))
+        .contains("sign:false:success", "parse:false:success", "verify:false:success", "verify:true:success",
+            "parse:false:bad_signature", "verify:false:bad_signature");
+    assertThat(events(events, "com.mina.authentication.PasswordHash"))
+        .extracting(event -> event.getString("operation") + ":" + event.getInt("cost") + ":" + event.getBoolean("matched"))
+        .containsExactly("encode:4:false", "match:4:true");
+    assertThat(events(events, "com.mina.authentication.PasswordHash"))
+        .allSatisfy(event -> assertThat(event.getThread("requestThread").getJavaName()).isEqualTo(Thread.currentThread().getName()));
+//    Below the threshold of 20 ms, only the slow operation is recorded
+    assertThat(events(events, "com.mina.authentication.Operation"))
+        .extracting(event -> event.getString("operation") + ":" + event.getString("outcome"))
+        .containsExactly("signup:success");
+  }
+
+  // The shipped settings, with the threshold of the token events lowered so the cheap operations are recorded too
+  private static Map<String, String> settings(String tokenThreshold) throws Exception {
+    try (Reader reader = new InputStreamReader(AuthenticationEventsTest.class.getResourceAsStream("/jfr/authentication.jfc"),
+        StandardCharsets.UTF_8)) {
+      Configuration configuration = Configuration.create(reader);
+      Map<String, String> settings = new HashMap<>(configuration.getSettings());
+      settings.put("com.mina.authentication.Token#threshold", tokenThreshold);
+      return settings;
+    }
+  }
+
+  private static List<RecordedEvent> events(List<RecordedEvent> events, String name) {
+    return events.stream().filter(event -> event.getEventType().getName().equals(name)).toList();
+  }
+}
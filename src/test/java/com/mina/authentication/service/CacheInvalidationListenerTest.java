@@ -0,0 +1,71 @@
+package com.mina.authentication.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.mina.authentication.config.AuthMetrics;
+import com.mina.authentication.domain.InvalidationEvent;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class CacheInvalidationListenerTest {
+
+  private final UserCache userCache = mock(UserCache.class);
+  private final TokenRevocationService tokenRevocationService = mock(TokenRevocationService.class);
+  private final CacheInvalidationListener listener = new CacheInvalidationListener(mock(HikariDataSource.class), userCache,
+      tokenRevocationService, new AuthMetrics(new SimpleMeterRegistry()), true, Duration.ofMillis(20), 1000,
+      Duration.ofSeconds(2), Duration.ofSeconds(10), Duration.ofMillis(500), Duration.ofSeconds(30));
+
+  @Test
+  public void shouldApplyBatch_WhenEventsAreParsed() {
+    listener.apply(List.of(
+        InvalidationEvent.parse("1:u:mina@gmail.com"),
+        InvalidationEvent.parse("2:r:8b5c"),
+        InvalidationEvent.parse("3:u:mina@gmail.com")));
+
+    verify(userCache).invalidateAll(Set.of("mina@gmail.com"));
+    verify(tokenRevocationService).addRevoked(Set.of("8b5c"));
+    verify(userCache, never()).invalidateAll();
+  }
+
+  @Test
+  public void shouldParseEvent_WhenKeyContainsSeparator() {
+    assertThat(InvalidationEvent.parse("42:u:a:b@gmail.com"))
+        .isEqualTo(new InvalidationEvent(42, InvalidationEvent.Type.USER, "a:b@gmail.com"));
+    assertThat(InvalidationEvent.parse("43:x:key")).isEqualTo(new InvalidationEvent(43, null, "key"));
+    assertThat(InvalidationEvent.parse("garbage")).isNull();
+  }
+
+  @Test
+  public void shouldReportGap_OnlyWhenSkippedSequenceStaysMissing() {
+    long second = Duration.ofSeconds(1).toNanos();
+    CacheInvalidationListener.Sequences sequences = new CacheInvalidationListener.Sequences(Duration.ofSeconds(2));
+    sequences.reset(10);
+
+//    12 commits before 11
+    sequences.seen(12, 0);
+    assertThat(sequences.overdue(second)).isFalse();
+    sequences.seen(11, second);
+    assertThat(sequences.overdue(10 * second)).isFalse();
+
+//    14 never arrives
+    sequences.seen(13, 10 * second);
+    sequences.seen(15, 10 * second);
+    assertThat(sequences.overdue(11 * second)).isFalse();
+    assertThat(sequences.overdue(13 * second)).isTrue();
+  }
+
+  @Test
+  public void shouldGiveUp_WhenTooManyEventsAreMissing() {
+    CacheInvalidationListener.Sequences sequences = new CacheInvalidationListener.Sequences(Duration.ofSeconds(2));
+    sequences.reset(0);
+
+    assertThat(sequences.seen(CacheInvalidationListener.Sequences.MAX_MISSING + 2, 0)).isFalse();
+  }
+}
@@ -0,0 +1,156 @@
+package com.mina.authentication.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mina.authentication.config.AuthMetrics;
+import com.mina.authentication.config.DatabaseBulkheads;
+import com.mina.authentication.domain.LoginAttempt;
+import com.mina.authentication.repository.LoginAttemptRepository;
+import com.mina.authentication.repository.LoginStatsRepository;
+import com.mina.authentication.repository.SpoolOffsetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+public class LoginAttemptRecorderTest {
+
+  private final LoginAttemptRepository repository = mock(LoginAttemptRepository.class);
+  private final LoginStatsRepository statsRepository = mock(LoginStatsRepository.class);
+  private final TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AuthMetrics metrics = new AuthMetrics(meterRegistry);
+  private final DatabaseBulkheads bulkheads = new DatabaseBulkheads(meterRegistry, 6, Duration.ofMillis(500), 2,
+      Duration.ofMillis(500), Duration.ofSeconds(1));
+  private final SpoolOffsetRepository spoolOffsetRepository = mock(SpoolOffsetRepository.class);
+  private final LoginAttemptSpool noSpool = new LoginAttemptSpool(metrics, false, Path.of("unused"), DataSize.ofKilobytes(1), 1);
+
+  @TempDir
+  private Path spoolDirectory;
+
+  @Test
+  public void shouldWriteQueuedAttemptsInBatches() {
+    LoginAttemptRecorder recorder = new LoginAttemptRecorder(repository, statsRepository, noSpool, spoolOffsetRepository, transactionTemplate, bulkheads, metrics, 10, 2, Duration.ofMinutes(1), Duration.ZERO, 1000);
+    recorder.start();
+    LoginAttempt first = new LoginAttempt(null, "mina@gmail.com", true, LocalDateTime.now());
+    LoginAttempt second = new LoginAttempt(null, "mina@gmail.com", false, LocalDateTime.now());
+
+    recorder.record(first);
+    recorder.record(second);
+
+    verify(repository, timeout(5000)).addAll(List.of(first, second));
+    verify(statsRepository, timeout(5000)).increment(List.of(first, second));
+    verify(repository, never()).add(any());
+    recorder.stop();
+  }
+
+  @Test
+  public void shouldKeepAttemptsPendingUntilFlushedOnStop() {
+    LoginAttemptRecorder recorder = new LoginAttemptRecorder(repository, statsRepository, noSpool, spoolOffsetRepository, transactionTemplate, bulkheads, metrics, 10, 100, Duration.ofMinutes(1), Duration.ZERO, 1000);
+    recorder.start();
+    LoginAttempt attempt = new LoginAttempt(null, "nick@gmail.com", true, LocalDateTime.now());
+
+    recorder.record(attempt);
+
+    assertThat(recorder.pending("nick@gmail.com")).containsExactly(attempt);
+    assertThat(recorder.pending("john@gmail.com")).isEmpty();
+
+    recorder.stop();
+
+    verify(repository).addAll(List.of(attempt));
+    assertThat(recorder.pending("nick@gmail.com")).isEmpty();
+  }
+
+  @Test
+  public void shouldWriteOnCallerThread_WhenQueueIsFull() {
+    LoginAttemptRecorder recorder = new LoginAttemptRecorder(repository, statsRepository, noSpool, spoolOffsetRepository, transactionTemplate, bulkheads, metrics, 1, 100, Duration.ofMinutes(1), Duration.ZERO, 1000);
+    recorder.start();
+    LoginAttempt queued = new LoginAttempt(null, "sandra@gmail.com", true, LocalDateTime.now());
+    LoginAttempt overflow = new LoginAttempt(null, "sandra@gmail.com", false, LocalDateTime.now());
+
+    recorder.record(queued);
+    recorder.record(overflow);
+
+    verify(repository).add(overflow);
+    verify(statsRepository).increment(List.of(overflow));
+    verify(repository, never()).addAll(anyList());
+    recorder.stop();
+  }
+
+  @Test
+  public void shouldHoldWritePermit_ForTheWholeTransaction() {
+    LoginAttemptRecorder recorder = new LoginAttemptRecorder(repository, statsRepository, noSpool, spoolOffsetRepository, transactionTemplate, bulkheads, metrics, 10, 100, Duration.ofMinutes(1), Duration.ZERO, 1000);
+    List<Double> activeDuringStats = new ArrayList<>();
+    doAnswer(invocation -> activeDuringStats.add(activeAttemptWrites())).when(statsRepository).increment(anyList());
+
+    recorder.record(new LoginAttempt(null, "mina@gmail.com", true, LocalDateTime.now())); // not started, written by the caller
+
+    assertThat(activeDuringStats).containsExactly(1.0);
+    assertThat(activeAttemptWrites()).isZero();
+  }
+
+  @Test
+  public void shouldSpoolAndReplayAttempts_WhenQueueIsFull() throws Exception {
+    when(spoolOffsetRepository.find(any())).thenReturn(Optional.empty());
+    try (LoginAttemptSpool spool = new LoginAttemptSpool(metrics, true, spoolDirectory, DataSize.ofKilobytes(1), 4)) {
+      LoginAttemptRecorder recorder = new LoginAttemptRecorder(repository, statsRepository, spool, spoolOffsetRepository, transactionTemplate, bulkheads, metrics, 1, 100, Duration.ofMillis(50), Duration.ZERO, 1000);
+      recorder.start();
+      LoginAttempt queued = new LoginAttempt(null, "sandra@gmail.com", true, LocalDateTime.now());
+      LoginAttempt spooled = new LoginAttempt(null, "sandra@gmail.com", false, LocalDateTime.now());
+
+      recorder.record(queued);
+      recorder.record(spooled);
+
+      verify(repository, never()).add(any());
+      verify(repository, timeout(5000)).addAll(List.of(spooled));
+      verify(spoolOffsetRepository, timeout(5000)).save(spool.id(), spool.read(spool.start(), 10).next());
+      recorder.stop();
+    }
+  }
+
+  @Test
+  public void shouldKeepSpooledAttemptsPending_UntilTheyAreReplayed() throws Exception {
+    when(spoolOffsetRepository.find(any())).thenReturn(Optional.empty());
+    doThrow(new IllegalStateException("Database stalls")).when(repository).addAll(anyList());
+    try (LoginAttemptSpool spool = new LoginAttemptSpool(metrics, true, spoolDirectory, DataSize.ofKilobytes(1), 4)) {
+      LoginAttemptRecorder recorder = new LoginAttemptRecorder(repository, statsRepository, spool, spoolOffsetRepository, transactionTemplate, bulkheads, metrics, 1, 100, Duration.ofMillis(50), Duration.ZERO, 1000);
+      recorder.start();
+      LoginAttempt queued = new LoginAttempt(null, "sandra@gmail.com", true, LocalDateTime.now());
+      LoginAttempt spooled = new LoginAttempt(null, "sandra@gmail.com", false, LocalDateTime.now());
+
+      recorder.record(queued);
+      recorder.record(spooled);
+
+      assertThat(recorder.pending("sandra@gmail.com")).containsExactlyInAnyOrder(queued, spooled);
+      assertThat(recorder.pending("mina@gmail.com")).isEmpty();
+
+      doNothing().when(repository).addAll(anyList());
+      verify(spoolOffsetRepository, timeout(5000)).save(any(), any());
+      recorder.stop();
+
+      assertThat(recorder.pending("sandra@gmail.com")).isEmpty();
+    }
+  }
+
+  private double activeAttemptWrites() {
+    return meterRegistry.get("db.bulkhead.active").tag("bulkhead", "attempt_writes").gauge().value();
+  }
+}
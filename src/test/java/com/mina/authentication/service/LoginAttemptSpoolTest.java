@@ -0,0 +1,100 @@
+package com.mina.authentication.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mina.authentication.config.AuthMetrics;
+import com.mina.authentication.domain.LoginAttempt;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+public class LoginAttemptSpoolTest {
+
+  private final AuthMetrics metrics = new AuthMetrics(new SimpleMeterRegistry());
+  private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+  @TempDir
+  private Path directory;
+
+  @Test
+  public void shouldReadAppendedAttemptsAcrossSegments() throws IOException {
+    List<LoginAttempt> appended = new ArrayList<>();
+    try (LoginAttemptSpool spool = spool(8)) {
+      for (int i = 0; i < 40; i++) {
+        LoginAttempt loginAttempt = new LoginAttempt(null, "user" + i + "@gmail.com", i % 3 == 0, now.plusSeconds(i));
+        assertThat(spool.append(loginAttempt)).isTrue();
+        appended.add(loginAttempt);
+      }
+
+      LoginAttemptSpool.Batch first = spool.read(spool.start(), 25);
+      LoginAttemptSpool.Batch second = spool.read(first.next(), 25);
+
+      assertThat(first.loginAttempts()).isEqualTo(appended.subList(0, 25));
+      assertThat(second.loginAttempts()).isEqualTo(appended.subList(25, 40));
+      assertThat(spool.hasUnread(second.next())).isFalse();
+
+      spool.release(second.next());
+      assertThat(segments()).hasSize(1);
+    }
+  }
+
+  @Test
+  public void shouldRejectAttempts_WhenSpoolIsFull() throws IOException {
+    try (LoginAttemptSpool spool = spool(1)) {
+      boolean appended = true;
+      for (int i = 0; i < 100 && appended; i++) {
+        appended = spool.append(new LoginAttempt(null, "mina@gmail.com", true, now));
+      }
+
+      assertThat(appended).isFalse();
+    }
+  }
+
+  @Test
+  public void shouldSkipTornRecord_AfterRestart() throws IOException {
+    LoginAttempt first = new LoginAttempt(null, "mina@gmail.com", true, now);
+    LoginAttempt torn = new LoginAttempt(null, "nick@gmail.com", false, now);
+    LoginAttemptSpool.Offset tornAt;
+    try (LoginAttemptSpool spool = spool(8)) {
+      spool.append(first);
+      tornAt = spool.read(spool.start(), 10).next();
+      spool.append(torn);
+    }
+//    A crash in the middle of the second record
+    try (FileChannel channel = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {0x7f}), tornAt.position() + 10);
+    }
+
+    LoginAttempt afterRestart = new LoginAttempt(null, "john@gmail.com", true, now);
+    try (LoginAttemptSpool spool = spool(8)) {
+      spool.append(afterRestart);
+
+      LoginAttemptSpool.Batch batch = spool.read(spool.start(), 10);
+
+      assertThat(batch.loginAttempts()).containsExactly(first, afterRestart);
+      assertThat(spool.hasUnread(batch.next())).isFalse();
+    }
+  }
+
+  private LoginAttemptSpool spool(int maxSegments) {
+    return new LoginAttemptSpool(metrics, true, directory, DataSize.ofBytes(512), maxSegments);
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> file.toString().endsWith(".spool")).sorted().toList();
+    }
+  }
+}
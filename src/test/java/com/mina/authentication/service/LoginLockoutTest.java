@@ -0,0 +1,94 @@
+package com.mina.authentication.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.mina.authentication.domain.LoginAttempt;
+import com.mina.authentication.domain.LoginAttemptPage;
+import com.mina.authentication.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class LoginLockoutTest {
+
+  private final LoginService loginService = mock(LoginService.class);
+  private final AtomicLong now = new AtomicLong(Instant.parse("2026-10-18T10:00:00Z").toEpochMilli());
+  private final Clock clock = mock(Clock.class);
+  private final LoginLockout lockout;
+
+  public LoginLockoutTest() {
+    when(clock.millis()).thenAnswer(invocation -> now.get());
+    when(loginService.findLoginAttempts(any(), any(), any(), anyInt())).thenReturn(new LoginAttemptPage(List.of(), null));
+    lockout = new LoginLockout(loginService, new SimpleMeterRegistry(), clock, 3, Duration.ofMinutes(15), 15, 1000);
+  }
+
+  @Test
+  public void shouldLockAccount_WhenMaxFailuresAreReached() {
+    for (int i = 0; i < 3; i++) {
+      lockout.check("mina@gmail.com");
+      lockout.recordFailure("mina@gmail.com");
+      now.addAndGet(Duration.ofMinutes(1).toMillis());
+    }
+
+    assertThatThrownBy(() -> lockout.check("mina@gmail.com"))
+        .isInstanceOfSatisfying(TooManyRequestsException.class,
+            e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofMinutes(12)));
+    lockout.check("nick@gmail.com");
+  }
+
+  @Test
+  public void shouldUnlockAccount_WhenFailuresLeaveTheWindow() {
+    for (int i = 0; i < 3; i++) {
+      lockout.check("mina@gmail.com");
+      lockout.recordFailure("mina@gmail.com");
+    }
+
+    now.addAndGet(Duration.ofMinutes(15).toMillis());
+
+    lockout.check("mina@gmail.com");
+  }
+
+  @Test
+  public void shouldSeedFailuresSinceLastSuccess() {
+    LocalDateTime current = LocalDateTime.ofInstant(Instant.ofEpochMilli(now.get()), ZoneId.systemDefault());
+    when(loginService.findLoginAttempts(eq("sandra@gmail.com"), any(), isNull(), eq(3))).thenReturn(new LoginAttemptPage(List.of(
+        new LoginAttempt(null, "sandra@gmail.com", false, current.minusMinutes(1)),
+        new LoginAttempt(null, "sandra@gmail.com", false, current.minusMinutes(2)),
+        new LoginAttempt(null, "sandra@gmail.com", true, current.minusMinutes(3))), null));
+
+    lockout.check("sandra@gmail.com");
+    lockout.recordFailure("sandra@gmail.com");
+
+    assertThatThrownBy(() -> lockout.check("sandra@gmail.com")).isInstanceOf(TooManyRequestsException.class);
+
+    lockout.recordSuccess("sandra@gmail.com");
+    lockout.check("sandra@gmail.com");
+  }
+
+  @Test
+  public void shouldSeedUpToMaxFailures_WhenMaxFailuresExceedRecentAttempts() {
+    LoginLockout lockout = new LoginLockout(loginService, new SimpleMeterRegistry(), clock, 12, Duration.ofMinutes(15), 15, 1000);
+    LocalDateTime current = LocalDateTime.ofInstant(Instant.ofEpochMilli(now.get()), ZoneId.systemDefault());
+    List<LoginAttempt> failures = IntStream.range(0, 12)
+        .mapToObj(i -> new LoginAttempt(null, "sandra@gmail.com", false, current.minusSeconds(i)))
+        .toList();
+    when(loginService.findLoginAttempts(eq("sandra@gmail.com"), any(), isNull(), eq(12)))
+        .thenReturn(new LoginAttemptPage(failures, null));
+
+    assertThatThrownBy(() -> lockout.check("sandra@gmail.com")).isInstanceOf(TooManyRequestsException.class);
+  }
+}
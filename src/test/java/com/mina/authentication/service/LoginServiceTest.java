@@ -0,0 +1,208 @@
+package com.mina.authentication.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mina.authentication.config.AuthMetrics;
+import com.mina.authentication.config.DatabaseBulkheads;
+import com.mina.authentication.domain.LoginAttempt;
+import com.mina.authentication.domain.LoginAttemptCursor;
+import com.mina.authentication.domain.LoginAttemptFilter;
+import com.mina.authentication.domain.LoginAttemptPage;
+import com.mina.authentication.repository.LoginAttemptRepository;
+import com.mina.authentication.repository.LoginStatsRepository;
+import com.mina.authentication.repository.SpoolOffsetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+public class LoginServiceTest {
+
+  private static final String EMAIL = "mina@gmail.com";
+  private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 18, 10, 0);
+
+  private final LoginAttemptRepository repository = mock(LoginAttemptRepository.class);
+  private final LoginAttemptRecorder recorder = mock(LoginAttemptRecorder.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final DatabaseBulkheads bulkheads = new DatabaseBulkheads(meterRegistry, 6, Duration.ofMillis(500), 2,
+      Duration.ofMillis(500), Duration.ofSeconds(1));
+  private final LoginService service = new LoginService(repository, recorder, bulkheads, new ThreadBoundTransactionManager());
+
+  @Test
+  public void shouldMergePendingAttemptsIntoFirstPage() {
+    LoginAttempt pending = new LoginAttempt(null, EMAIL, false, NOW);
+    LoginAttempt written = new LoginAttempt(null, EMAIL, true, NOW.minusMinutes(1));
+    LoginAttempt first = new LoginAttempt(3L, EMAIL, true, NOW.minusMinutes(1)); // written meanwhile
+    LoginAttempt second = new LoginAttempt(2L, EMAIL, true, NOW.minusMinutes(2));
+    LoginAttempt third = new LoginAttempt(1L, EMAIL, true, NOW.minusMinutes(3));
+    when(recorder.pending(EMAIL)).thenReturn(List.of(written, pending));
+    when(repository.findPage(EMAIL, LoginAttemptFilter.NONE, null, 3)).thenReturn(List.of(first, second, third));
+
+    LoginAttemptPage page = service.findLoginAttempts(EMAIL, LoginAttemptFilter.NONE, null, 2);
+
+    assertThat(page.loginAttempts()).containsExactly(pending, first);
+    assertThat(page.next()).isEqualTo(new LoginAttemptCursor(first.createdAt(), 3L));
+  }
+
+  @Test
+  public void shouldContinueAtFirstStoredRowLeftOut_WhenPageEndsWithPendingAttempt() {
+    LoginAttempt newest = new LoginAttempt(5L, EMAIL, true, NOW);
+    LoginAttempt pending = new LoginAttempt(null, EMAIL, false, NOW.minusMinutes(1));
+    LoginAttempt sameInstant = new LoginAttempt(4L, EMAIL, true, NOW.minusMinutes(1));
+    when(recorder.pending(EMAIL)).thenReturn(List.of(pending));
+    when(repository.findPage(EMAIL, LoginAttemptFilter.NONE, null, 3)).thenReturn(List.of(newest, sameInstant));
+
+    LoginAttemptPage page = service.findLoginAttempts(EMAIL, LoginAttemptFilter.NONE, null, 2);
+
+    assertThat(page.loginAttempts()).containsExactly(newest, pending);
+    assertThat(page.next()).isEqualTo(LoginAttemptCursor.before(sameInstant));
+    assertThat(LoginAttemptCursor.decode(page.next().encode())).isEqualTo(new LoginAttemptCursor(sameInstant.createdAt(), 5L));
+  }
+
+  @Test
+  public void shouldReturnLastPageWithoutCursor() {
+    LoginAttemptCursor after = new LoginAttemptCursor(NOW, 10L);
+    LoginAttemptFilter failures = new LoginAttemptFilter(null, null, false);
+    LoginAttempt last = new LoginAttempt(4L, EMAIL, false, NOW.minusDays(1));
+    when(repository.findPage(EMAIL, failures, after, 3)).thenReturn(List.of(last));
+
+    LoginAttemptPage page = service.findLoginAttempts(EMAIL, failures, after, 2);
+
+    assertThat(page.loginAttempts()).containsExactly(last);
+    assertThat(page.next()).isNull();
+    verify(recorder, never()).pending(EMAIL);
+  }
+
+  // The connection stays bound to the transaction, so the permit has to cover the transaction and not only the query
+  @Test
+  public void shouldReadStoredAttemptsInReadOnlyTransaction_HoldingAuthReadPermit() {
+    List<String> during = new ArrayList<>();
+    when(repository.findPage(EMAIL, LoginAttemptFilter.NONE, null, 3)).thenAnswer(invocation -> {
+      during.add("readOnly=" + TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+      during.add("active=" + meterRegistry.get("db.bulkhead.active").tag("bulkhead", "auth_reads").gauge().value());
+      return List.of();
+    });
+
+    service.findLoginAttempts(EMAIL, LoginAttemptFilter.NONE, null, 2);
+
+    assertThat(during).containsExactly("readOnly=true", "active=1.0");
+    assertThat(meterRegistry.get("db.bulkhead.active").tag("bulkhead", "auth_reads").gauge().value()).isZero();
+  }
+
+  @Test
+  public void shouldWriteAttemptInReadWriteTransaction_WhenRecorderIsStopped() {
+    try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(TransactionalConfig.class)) {
+      context.getBean(LoginAttemptRecorder.class).stop(); // every attempt takes the fallback on the caller thread
+      LoginAttemptRepository repository = context.getBean(LoginAttemptRepository.class);
+      List<Boolean> readOnly = new ArrayList<>();
+      doAnswer(invocation -> readOnly.add(TransactionSynchronizationManager.isCurrentTransactionReadOnly()))
+          .when(repository).add(any());
+
+      context.getBean(LoginService.class).addLoginAttempt(EMAIL, false);
+
+      assertThat(readOnly).containsExactly(false);
+    }
+  }
+
+  @Configuration(proxyBeanMethods = false)
+  @EnableTransactionManagement
+  static class TransactionalConfig {
+
+    @Bean
+    PlatformTransactionManager transactionManager() {
+      return new ThreadBoundTransactionManager();
+    }
+
+    @Bean
+    LoginAttemptRepository loginAttemptRepository() {
+      return mock(LoginAttemptRepository.class);
+    }
+
+    @Bean
+    LoginAttemptRecorder loginAttemptRecorder(LoginAttemptRepository repository, PlatformTransactionManager transactionManager) {
+      AuthMetrics metrics = new AuthMetrics(new SimpleMeterRegistry());
+      LoginAttemptSpool noSpool = new LoginAttemptSpool(metrics, false, Path.of("unused"), DataSize.ofKilobytes(1), 1);
+      return new LoginAttemptRecorder(repository, mock(LoginStatsRepository.class), noSpool, mock(SpoolOffsetRepository.class),
+          new TransactionTemplate(transactionManager), bulkheads(), metrics, 10, 100, Duration.ofMinutes(1), Duration.ZERO, 1000);
+    }
+
+    @Bean
+    LoginService loginService(LoginAttemptRepository repository, LoginAttemptRecorder recorder,
+        PlatformTransactionManager transactionManager) {
+      return new LoginService(repository, recorder, bulkheads(), transactionManager);
+    }
+
+    private static DatabaseBulkheads bulkheads() {
+      return new DatabaseBulkheads(new SimpleMeterRegistry(), 6, Duration.ofMillis(500), 2, Duration.ofMillis(500),
+          Duration.ofSeconds(1));
+    }
+  }
+
+  /**
+   * Joins, suspends and starts transactions like a real transaction manager, without a database.
+   */
+  static class ThreadBoundTransactionManager extends AbstractPlatformTransactionManager {
+
+    private final ThreadLocal<Object> current = new ThreadLocal<>();
+
+    @Override
+    protected Object doGetTransaction() {
+      return new Object[] {current.get()};
+    }
+
+    @Override
+    protected boolean isExistingTransaction(Object transaction) {
+      return ((Object[]) transaction)[0] != null;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+      current.set(transaction);
+    }
+
+    @Override
+    protected Object doSuspend(Object transaction) {
+      Object suspended = current.get();
+      current.remove();
+      return suspended;
+    }
+
+    @Override
+    protected void doResume(Object transaction, Object suspendedResources) {
+      current.set(suspendedResources);
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+      current.remove();
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package com.mina.authentication.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mina.authentication.domain.RefreshToken;
+import com.mina.authentication.domain.User;
+import com.mina.authentication.exceptions.InvalidTokenException;
+import com.mina.authentication.repository.RefreshTokenRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+public class RefreshTokenServiceTest {
+
+  private static final Duration TTL = Duration.ofDays(14);
+
+  private final RefreshTokenRepository repository = mock(RefreshTokenRepository.class);
+  private final UserCache userCache = mock(UserCache.class);
+  private final RefreshTokenService service = new RefreshTokenService(repository, userCache, TTL);
+
+  @Test
+  public void shouldIssueNextTokenOfSameFamily_WhenTokenIsRotated() {
+    UUID familyId = UUID.randomUUID();
+    when(repository.use(any())).thenReturn(Optional.of(new RefreshToken(familyId, "mina@gmail.com", LocalDateTime.now())));
+    when(userCache.findByEmail("mina@gmail.com")).thenReturn(Optional.of(new User("Mina", "mina@gmail.com", "hash")));
+
+    RefreshTokenService.Rotation rotation = service.rotate("token");
+
+    assertThat(rotation.email()).isEqualTo("mina@gmail.com");
+    assertThat(rotation.refreshToken()).isNotEqualTo("token").hasSize(43);
+    verify(repository).add(any(), eq(familyId), eq("mina@gmail.com"), eq(TTL));
+  }
+
+  @Test
+  public void shouldRevokeFamily_WhenUsedTokenIsPresentedAgain() {
+    UUID familyId = UUID.randomUUID();
+    when(repository.use(any())).thenReturn(Optional.empty());
+    when(repository.findByHash(any())).thenReturn(Optional.of(new RefreshToken(familyId, "nick@gmail.com", LocalDateTime.now())));
+
+    assertThatThrownBy(() -> service.rotate("token")).isInstanceOf(InvalidTokenException.class);
+
+    verify(repository).revokeFamily(familyId);
+    verify(repository, never()).add(any(), any(), any(), any());
+  }
+
+  @Test
+  public void shouldNotRevokeAnything_WhenTokenIsUnknown() {
+    when(repository.use(any())).thenReturn(Optional.empty());
+    when(repository.findByHash(any())).thenReturn(Optional.empty());
+
+    assertThatThrownBy(() -> service.rotate("token")).isInstanceOf(InvalidTokenException.class);
+
+    verify(repository, never()).revokeFamily(any());
+  }
+}
@@ -0,0 +1,62 @@
+package com.mina.authentication.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mina.authentication.config.DatabaseBulkheads;
+import com.mina.authentication.config.ReplicaRouter;
+import com.mina.authentication.domain.User;
+import com.mina.authentication.exceptions.ServiceUnavailableException;
+import com.mina.authentication.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class UserCacheTest {
+
+  private static final String EMAIL = "mina@gmail.com";
+
+  private final UserRepository repository = mock(UserRepository.class);
+  private final ReplicaRouter noReplicas = new ReplicaRouter(List.of(), Duration.ofSeconds(1), new SimpleMeterRegistry());
+  private final DatabaseBulkheads bulkheads = new DatabaseBulkheads(new SimpleMeterRegistry(), 6, Duration.ofMillis(500), 2,
+      Duration.ofMillis(500), Duration.ofSeconds(1));
+  private final UserCache userCache = new UserCache(repository, noReplicas, bulkheads, mock(PlatformTransactionManager.class),
+      new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+
+  @Test
+  public void shouldLoadUserOnce() {
+    User user = new User("Mina", EMAIL, "hash");
+    when(repository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+
+    assertThat(userCache.findByEmail(EMAIL)).contains(user);
+    assertThat(userCache.findByEmail(EMAIL)).contains(user);
+
+    verify(repository, times(1)).findByEmail(EMAIL);
+  }
+
+  @Test
+  public void shouldQueryUnknownEmailOnce_WhenThereAreNoReplicas() {
+    when(repository.findByEmail(EMAIL)).thenReturn(Optional.empty());
+
+    assertThat(userCache.findByEmail(EMAIL)).isEmpty();
+
+    verify(repository, times(1)).findByEmail(EMAIL);
+  }
+
+  @Test
+  public void shouldRethrowRejectionOfLoad_AndNotCacheIt() {
+    ServiceUnavailableException rejection = new ServiceUnavailableException("Database busy", Duration.ofSeconds(1));
+    User user = new User("Mina", EMAIL, "hash");
+    when(repository.findByEmail(EMAIL)).thenThrow(rejection).thenReturn(Optional.of(user));
+
+    assertThat(catchThrowable(() -> userCache.findByEmail(EMAIL))).isSameAs(rejection);
+    assertThat(userCache.findByEmail(EMAIL)).contains(user);
+  }
+}
@@ -0,0 +1,110 @@
+package com.mina.authentication.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mina.authentication.config.AuthMetrics;
+import com.mina.authentication.repository.ImportCheckpointRepository;
+import com.mina.authentication.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class UserImporterTest {
+
+  private final UserRepository repository = mock(UserRepository.class);
+  private final ImportCheckpointRepository checkpointRepository = mock(ImportCheckpointRepository.class);
+  private final Map<String, Long> checkpoints = new HashMap<>();
+  private final UserImporter importer = new UserImporter(repository, checkpointRepository, mock(UserCache.class),
+      new TransactionTemplate(mock(PlatformTransactionManager.class)), new ObjectMapper(),
+      Validation.buildDefaultValidatorFactory().getValidator(), new AuthMetrics(new SimpleMeterRegistry()), 2, 2);
+
+  @TempDir
+  private Path directory;
+
+  public UserImporterTest() {
+    when(checkpointRepository.find(anyString())).thenAnswer(invocation -> Optional.ofNullable(checkpoints.get(invocation.getArgument(0))));
+    doAnswer(invocation -> checkpoints.put(invocation.getArgument(0), invocation.getArgument(1)))
+        .when(checkpointRepository).save(anyString(), anyLong());
+    doAnswer(invocation -> checkpoints.remove(invocation.getArgument(0))).when(checkpointRepository).delete(anyString());
+  }
+
+  @Test
+  public void shouldParseQuotedCsvFields() {
+    assertThat(UserImporter.CsvRecords.parse("\"Doe, John\",\"say \"\"hi\"\"\",,plain"))
+        .containsExactly("Doe, John", "say \"hi\"", "", "plain");
+    assertThat(UserImporter.CsvRecords.parse("\"\",x")).containsExactly("", "x");
+  }
+
+  @Test
+  public void shouldResumeAfterLastCommittedChunk_WithoutReportingItTwice() throws IOException {
+    Path file = directory.resolve("users.csv");
+    Files.writeString(file, """
+        name,email,password
+        Mina,not-an-email,123456
+        Nick,nick@gmail.com,123456
+        Sandra,sandra@gmail.com,123456
+        Bad,,123456
+        """);
+    when(repository.addAll(anyList()))
+        .thenReturn(new HashSet<>(Set.of("nick@gmail.com")))
+        .thenThrow(new IllegalStateException("Could not copy users"))
+        .thenReturn(new HashSet<>(Set.of("sandra@gmail.com")));
+
+    assertThatThrownBy(() -> importer.importFile(file)).hasMessage("Could not copy users");
+    assertThat(checkpoints).containsValue(2L);
+
+    UserImporter.Result result = importer.importFile(file);
+
+    assertThat(result).isEqualTo(new UserImporter.Result(1, 0, 1));
+    assertThat(Files.readAllLines(directory.resolve("users.csv.report.csv"))).containsExactly(
+        "record,email,status,reason",
+        "1,\"not-an-email\",invalid,\"Invalid email format\"",
+        "4,\"\",invalid,\"Email cannot be blank\"");
+    assertThat(checkpoints).isEmpty();
+    verify(repository, times(3)).addAll(anyList());
+  }
+
+  @Test
+  public void shouldReportDuplicateEmails() throws IOException {
+    Path file = directory.resolve("users.ndjson");
+    Files.writeString(file, """
+        {"name": "Mina", "email": "mina@gmail.com", "password": "123456"}
+        {"name": "Mina", "email": "mina@gmail.com", "password": "654321"}
+        {"name": "Nick", "email": "nick@gmail.com", "password": "123456"}
+        """);
+    when(repository.addAll(any()))
+        .thenReturn(new HashSet<>(Set.of("mina@gmail.com")))
+        .thenReturn(new HashSet<>());
+
+    UserImporter.Result result = importer.importFile(file);
+
+    assertThat(result).isEqualTo(new UserImporter.Result(1, 2, 0));
+    assertThat(Files.readAllLines(directory.resolve("users.ndjson.report.csv"))).containsExactly(
+        "record,email,status,reason",
+        "2,\"mina@gmail.com\",duplicate,\"email already exists\"",
+        "3,\"nick@gmail.com\",duplicate,\"email already exists\"");
+  }
+}